@@ -0,0 +1,245 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Plays full headless games (a Dealer and N computer Players) for a sweep of player counts and measures the
+ * dealer/player concurrency: claims per second, claim-to-verdict latency percentiles, dealer CPU time and the peak
+ * number of live threads. Writes the results as CSV and JSON.
+ * Run with: mvn -Pjmh compile exec:exec -Dbench.main=bguspl.set.GameThroughputHarness -Djmh.args="players=2,50,500"
+ * Arguments (key=value, all optional):
+ * players  - the player counts to sweep (default 2,4,8,16,32,64,128,256,500).
+ * games    - the number of games per player count (default 3).
+ * strategy - the computer players' strategy (default perfect, see Config.computerStrategy).
+ * threads  - how player loops run (default platform, see Config.playerThreads).
+ * speedup  - the game clock speedup (default 1000, see Config.simulationSpeedup).
+ * seed     - the seed of the first game (default 1).
+ * out      - the output file prefix (default target/game-throughput, writes .csv and .json).
+ * The claim latency runs from a player's claim (Dealer.playerIdFinishedSet) until the player is woken up with the
+ * verdict (Player.claimChecked), both observed through the subclasses below, so the game itself is not changed.
+ */
+public class GameThroughputHarness {
+
+    /**
+     * A dealer that notes the time of every claim.
+     */
+    private static class TimedDealer extends Dealer {
+
+        final AtomicLongArray claimNanos;
+
+        TimedDealer(Env env, Table table, Player[] players) {
+            super(env, table, players);
+            claimNanos = new AtomicLongArray(players.length);
+        }
+
+        @Override
+        public void playerIdFinishedSet(int player) {
+            claimNanos.set(player, System.nanoTime());
+            super.playerIdFinishedSet(player);
+        }
+    }
+
+    /**
+     * A player that records the latency of its claims once the dealer delivered the verdict.
+     */
+    private static class TimedPlayer extends Player {
+
+        private final TimedDealer dealer;
+        private final List<Long> latencies;
+
+        TimedPlayer(Env env, TimedDealer dealer, Table table, int id, List<Long> latencies) {
+            super(env, dealer, table, id, false);
+            this.dealer = dealer;
+            this.latencies = latencies;
+        }
+
+        @Override
+        public void claimChecked() {
+            super.claimChecked();
+            // called on the dealer thread only
+            latencies.add(System.nanoTime() - dealer.claimNanos.get(id));
+        }
+    }
+
+    /**
+     * The results of one game.
+     */
+    private static class Sample {
+        int players;
+        int game;
+        double seconds;
+        long claims;
+        int sets;
+        int penalties;
+        long p50, p90, p99, p999, max;
+        double mean;
+        long dealerCpuNanos;
+        int peakThreads;
+
+        double claimsPerSecond() {
+            return claims / seconds;
+        }
+    }
+
+    private static final String[] COLUMNS = {"players", "game", "seconds", "claims", "claimsPerSecond", "sets",
+            "penalties", "latencyMeanMicros", "latencyP50Micros", "latencyP90Micros", "latencyP99Micros",
+            "latencyP999Micros", "latencyMaxMicros", "dealerCpuMillis", "peakThreads"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length == 2) options.put(pair[0].trim(), pair[1].trim());
+        }
+        int[] playerCounts = Arrays.stream(options.getOrDefault("players", "2,4,8,16,32,64,128,256,500").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int games = Integer.parseInt(options.getOrDefault("games", "3"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        String out = options.getOrDefault("out", "target/game-throughput");
+
+        Logger logger = Logger.getLogger("GameThroughputHarness");
+        List<Sample> samples = new ArrayList<>();
+        for (int players : playerCounts) {
+            Properties properties = new Properties();
+            properties.put("LogLevel", "OFF");
+            properties.put("Simulation", "True");
+            properties.put("HumanPlayers", "0");
+            properties.put("ComputerPlayers", Integer.toString(players));
+            properties.put("ComputerStrategy", options.getOrDefault("strategy", "perfect"));
+            properties.put("PlayerThreads", options.getOrDefault("threads", "platform"));
+            properties.put("SimulationSpeedup", options.getOrDefault("speedup", "1000"));
+            Config config = new Config(logger, properties);
+            Util util = new UtilImpl(config);
+            for (int game = 0; game < games; game++) {
+                Sample sample = playGame(logger, config, util, seed + game);
+                sample.game = game;
+                samples.add(sample);
+                System.out.printf(Locale.ROOT, "%d players, game %d: %.0f claims/s, p99 %d us, dealer cpu %d ms, %d threads%n",
+                        players, game, sample.claimsPerSecond(), sample.p99 / 1000, sample.dealerCpuNanos / 1_000_000,
+                        sample.peakThreads);
+            }
+        }
+        writeCsv(Paths.get(out + ".csv"), samples);
+        writeJson(Paths.get(out + ".json"), samples);
+        System.out.println("results written to " + out + ".csv and " + out + ".json");
+    }
+
+    private static Sample playGame(Logger logger, Config config, Util util, long seed) throws InterruptedException {
+        Env env = new Env(logger, config, new HeadlessUserInterface(), util, seed);
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        TimedDealer dealer = new TimedDealer(env, table, players);
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < players.length; i++)
+            players[i] = new TimedPlayer(env, dealer, table, i, latencies);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long[] dealerCpuNanos = {-1};
+        Thread dealerThread = new Thread(() -> {
+            boolean measured = threads.isCurrentThreadCpuTimeSupported();
+            long cpuStart = measured ? threads.getCurrentThreadCpuTime() : 0;
+            dealer.run();
+            if (measured) dealerCpuNanos[0] = threads.getCurrentThreadCpuTime() - cpuStart;
+        }, "dealer");
+        long start = System.nanoTime();
+        dealerThread.start();
+        dealerThread.join();
+
+        Sample sample = new Sample();
+        sample.seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        sample.players = players.length;
+        sample.peakThreads = threads.getPeakThreadCount();
+        sample.dealerCpuNanos = dealerCpuNanos[0];
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        sample.claims = sorted.length;
+        sample.mean = Arrays.stream(sorted).average().orElse(0);
+        sample.p50 = percentile(sorted, 50);
+        sample.p90 = percentile(sorted, 90);
+        sample.p99 = percentile(sorted, 99);
+        sample.p999 = percentile(sorted, 99.9);
+        sample.max = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        for (Player player : players) {
+            sample.sets += player.score();
+            sample.penalties += player.penalties();
+        }
+        return sample;
+    }
+
+    /**
+     * Returns a percentile of sorted values (nearest rank).
+     */
+    private static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static Object[] values(Sample sample) {
+        return new Object[]{sample.players, sample.game, sample.seconds, sample.claims, sample.claimsPerSecond(),
+                sample.sets, sample.penalties, sample.mean / 1000, sample.p50 / 1000.0, sample.p90 / 1000.0,
+                sample.p99 / 1000.0, sample.p999 / 1000.0, sample.max / 1000.0, sample.dealerCpuNanos / 1e6,
+                sample.peakThreads};
+    }
+
+    private static void writeCsv(Path path, List<Sample> samples) throws IOException {
+        createParent(path);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println(String.join(",", COLUMNS));
+            for (Sample sample : samples) {
+                Object[] values = values(sample);
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) line.append(',');
+                    line.append(format(values[i]));
+                }
+                writer.println(line);
+            }
+        }
+    }
+
+    private static void writeJson(Path path, List<Sample> samples) throws IOException {
+        createParent(path);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("[");
+            for (int s = 0; s < samples.size(); s++) {
+                Object[] values = values(samples.get(s));
+                StringBuilder line = new StringBuilder("  {");
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) line.append(", ");
+                    line.append('"').append(COLUMNS[i]).append("\": ").append(format(values[i]));
+                }
+                writer.println(line.append(s + 1 < samples.size() ? "}," : "}"));
+            }
+            writer.println("]");
+        }
+    }
+
+    private static String format(Object value) {
+        return value instanceof Double ? String.format(Locale.ROOT, "%.3f", (Double) value) : value.toString();
+    }
+
+    private static void createParent(Path path) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+    }
+}
@@ -0,0 +1,132 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Benchmarks of the UtilImpl hot paths, for several deck shapes.
+ * Run with: mvn -Pjmh compile exec:exec (see the jmh profile in pom.xml).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilImplBenchmark {
+
+    /**
+     * The deck shape: FeatureSize x FeatureCount.
+     */
+    @Param({"3x4", "3x5", "3x6", "4x4"})
+    public String deckShape;
+
+    /**
+     * Whether the cards are packed into bit lanes (Config.packedCards).
+     */
+    @Param({"true", "false"})
+    public boolean packedCards;
+
+    /**
+     * The number of cards on a table, for cardsToFeatures.
+     */
+    private static final int TABLE_SIZE = 12;
+
+    /**
+     * The number of candidate sets testSet cycles through (a power of 2).
+     */
+    private static final int CANDIDATES = 1024;
+
+    /**
+     * The maximum number of sets findSetsAllInDeck looks for in a deck of sets of more than 3 cards: without it the
+     * 4x4 deck has C(256, 4) combinations to walk, far more than a benchmark iteration.
+     */
+    private static final int MAX_SETS_OF_MORE_THAN_3 = 64;
+
+    private Util util;
+    private int[] deck;
+    private int[][] candidates;
+    private int[] table;
+    private int next;
+    private int allInDeckCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] shape = deckShape.split("x");
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("FeatureSize", shape[0]);
+        properties.put("FeatureCount", shape[1]);
+        properties.put("PackedCards", Boolean.toString(packedCards));
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+        allInDeckCount = config.featureSize == 3 ? Integer.MAX_VALUE : MAX_SETS_OF_MORE_THAN_3;
+
+        SplittableRandom random = new SplittableRandom(42);
+        deck = new int[config.deckSize];
+        for (int i = 0; i < deck.length; i++) {
+            int j = random.nextInt(i + 1);
+            deck[i] = deck[j];
+            deck[j] = i;
+        }
+        // random candidates of FeatureSize cards, half of them completed to a legal set when FeatureSize is 3
+        candidates = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; i++) {
+            int[] cards = new int[config.featureSize];
+            for (int k = 0; k < cards.length; k++) cards[k] = random.nextInt(config.deckSize);
+            if (cards.length == 3 && cards[0] != cards[1] && random.nextBoolean())
+                cards[2] = util.findThirdCard(cards[0], cards[1]);
+            candidates[i] = cards;
+        }
+        table = new int[TABLE_SIZE];
+        System.arraycopy(deck, 0, table, 0, TABLE_SIZE);
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        next = (next + 1) & (CANDIDATES - 1);
+        return util.testSet(candidates[next]);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsFirstInDeck() {
+        return util.findSets(deck, deck.length, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsAllInDeck() {
+        return util.findSets(deck, deck.length, allInDeckCount);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsAllOnTable() {
+        return util.findSets(table, table.length, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int[] cardToFeatures() {
+        next = (next + 1) % deck.length;
+        return util.cardToFeatures(deck[next]);
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(table);
+    }
+}
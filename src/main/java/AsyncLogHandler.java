@@ -0,0 +1,219 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that never blocks the logging threads on disk I/O.
+ * Records are put in a bounded lock-free ring buffer (any number of producers, one consumer). A background writer
+ * thread takes them in batches, formats them (so a record's parameters are only formatted there) and writes each
+ * batch to the file with a single channel write. When the buffer is full the record is dropped and counted, and
+ * the number of dropped records is written to the file later.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The records waiting to be written, at index sequence % capacity (null while a slot is free).
+     */
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int capacity;
+
+    /**
+     * The sequence number of the next record to write (advanced by the writer only) and of the next record to add.
+     */
+    private final AtomicLong head;
+    private final AtomicLong tail;
+
+    /**
+     * The number of records written to the file so far (advanced by the writer after each batch).
+     */
+    private volatile long written;
+
+    /**
+     * The number of records dropped because the ring buffer was full, and not reported yet.
+     */
+    private final AtomicLong dropped;
+
+    /**
+     * The log file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The writer thread and whether it should stop (after writing what is left).
+     */
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * The writer's buffers, reused between batches.
+     */
+    private final StringBuilder text;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder;
+
+    /**
+     * MAGIC-NUMBERS
+     *
+     * The default ring buffer capacity, the maximum number of records written in one batch, the writer's byte
+     * buffer size and how long the writer sleeps when there is nothing to write.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int MAX_BATCH = 512;
+    private static final int BYTE_BUFFER_SIZE = 1 << 16;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The class constructor. Opens (or creates) the log file and starts the writer thread.
+     *
+     * @param path     - the log file.
+     * @param capacity - the maximum number of records waiting to be written.
+     * @throws IOException if the file cannot be opened.
+     */
+    public AsyncLogHandler(Path path, int capacity) throws IOException {
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.text = new StringBuilder();
+        this.bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        ring.lazySet((int) (sequence % capacity), record);
+    }
+
+    /**
+     * The writer thread's loop: writes batches of records until the handler is closed and nothing is left.
+     */
+    private void writeLoop() {
+        while (true) {
+            int written = writeBatch();
+            if (written == 0) {
+                if (closed && head.get() == tail.get()) return;
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Takes up to MAX_BATCH records from the ring buffer, formats them and writes them to the file.
+     *
+     * @return - the number of records taken.
+     */
+    private int writeBatch() {
+        text.setLength(0);
+        int count = 0;
+        long sequence = head.get();
+        while (count < MAX_BATCH && sequence < tail.get()) {
+            int index = (int) (sequence % capacity);
+            LogRecord record = ring.get(index);
+            if (record == null) break; // claimed but not published yet
+            ring.lazySet(index, null);
+            head.lazySet(++sequence);
+            count++;
+            try {
+                text.append(getFormatter() == null ? record.getMessage() : getFormatter().format(record));
+            } catch (RuntimeException e) {
+                reportError("cannot format a log record", e, ErrorManager.FORMAT_FAILURE);
+            }
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            text.append("[log] ").append(lost).append(" log records dropped (buffer full)").append(System.lineSeparator());
+        }
+        if (text.length() > 0) write();
+        written = sequence;
+        return count;
+    }
+
+    /**
+     * Encodes the text buffer and writes it to the file (in as few channel writes as the byte buffer allows).
+     */
+    private void write() {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, true);
+                if (result.isUnderflow()) result = encoder.flush(bytes);
+                drainBytes();
+                if (result.isUnderflow() && !chars.hasRemaining()) return;
+            }
+        } catch (IOException e) {
+            reportError("cannot write to the log file", e, ErrorManager.WRITE_FAILURE);
+            bytes.clear();
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Waits until the records published before the call are written to the file.
+     */
+    @Override
+    public void flush() {
+        long target = tail.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Writes the remaining records, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            reportError("cannot close the log file", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+}
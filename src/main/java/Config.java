@@ -6,6 +6,7 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,6 +37,68 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * Whether to pack the features of each card into bit lanes of a single long for faster set checks
+     */
+    public final boolean packedCards;
+
+    /**
+     * Whether to search for sets in parallel (on a fork-join pool) in large decks
+     */
+    public final boolean parallelFindSets;
+
+    /**
+     * The minimum number of cards searched for the search to run in parallel
+     */
+    public final int parallelFindSetsThreshold;
+
+    /**
+     * The number of threads of the parallel set search (0 - the common fork-join pool, shared with the rest of the JVM)
+     */
+    public final int parallelFindSetsThreads;
+
+    /**
+     * How often the game's metrics (counters and latency histograms) are written to the log, in milliseconds
+     * (0 - only when the game ends)
+     */
+    public final long metricsDumpMillis;
+
+    /**
+     * Whether to run a headless simulation: games of computer players only, with no user interface, no table delays
+     * and a game clock that runs simulationSpeedup times faster than the wall clock
+     */
+    public final boolean simulation;
+
+    /**
+     * The number of games to run in a simulation
+     */
+    public final int simulationGames;
+
+    /**
+     * How many times faster than the wall clock the game time runs in a simulation
+     */
+    public final double simulationSpeedup;
+
+    /**
+     * The number of simulated games played at the same time
+     */
+    public final int simulationThreads;
+
+    /**
+     * More configuration files for a simulation (the games rotate through this configuration and these ones)
+     */
+    public final String[] simulationConfigs;
+
+    /**
+     * The seed of the game's random generator (a random seed unless set, so a game can be replayed with its seed)
+     */
+    public final long seed;
+
+    /**
+     * The file the game events are recorded to (see GameJournal), or an empty string to record nothing.
+     */
+    public final String journalFile;
+
     /**
      * The number of human players in the game.
      */
@@ -51,6 +114,35 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * How the player and computer player loops are run: platform (a thread each), pooled (tasks on a shared bounded
+     * pool, reused between games) or virtual (a virtual thread each, when the JVM supports them)
+     */
+    public final String playerThreads;
+
+    /**
+     * The number of threads handling the players' key presses and generating the computer players' key presses in
+     * pooled mode
+     */
+    public final int playerThreadPoolSize;
+
+    /**
+     * How the computer players choose their key presses: random, perfect (always a legal set) or human (a legal set
+     * after a reaction time, sometimes a wrong one)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The mean and the standard deviation of the reaction time of human-like computer players (in milliseconds)
+     */
+    public final long aiReactionMillis;
+    public final long aiReactionDeviationMillis;
+
+    /**
+     * The probability of a human-like computer player picking a wrong set
+     */
+    public final double aiErrorRate;
+
     /**
      * Whether to print out hints to the console or not
      */
@@ -132,6 +224,11 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The maximum number of times a second the user interface is updated
+     */
+    public final int uiFramesPerSecond;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -197,19 +294,48 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
-
-        // gameplay settings
-        humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
-        computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        packedCards = Boolean.parseBoolean(properties.getProperty("PackedCards", "True"));
+        parallelFindSets = Boolean.parseBoolean(properties.getProperty("ParallelFindSets", "False"));
+        parallelFindSetsThreshold = Integer.parseInt(properties.getProperty("ParallelFindSetsThreshold", "729"));
+        parallelFindSetsThreads = Integer.parseInt(properties.getProperty("ParallelFindSetsThreads", "0"));
+
+        String seedProperty = properties.getProperty("Seed", "").trim();
+        seed = seedProperty.isEmpty() ? new SplittableRandom().nextLong() : Long.parseLong(seedProperty);
+
+        journalFile = properties.getProperty("JournalFile", "").trim();
+
+        metricsDumpMillis = (long) (Double.parseDouble(properties.getProperty("MetricsDumpSeconds", "0")) * 1000.0);
+
+        // simulation settings
+        simulation = Boolean.parseBoolean(properties.getProperty("Simulation", "False"));
+        simulationGames = Integer.parseInt(properties.getProperty("SimulationGames", "1000"));
+        simulationSpeedup = Double.parseDouble(properties.getProperty("SimulationSpeedup", "1000"));
+        simulationThreads = Integer.parseInt(properties.getProperty("SimulationThreads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        simulationConfigs = Arrays.stream(properties.getProperty("SimulationConfigs", "").split(","))
+                .map(String::trim).filter(name -> !name.isEmpty()).toArray(String[]::new);
+
+        // gameplay settings (in a simulation all the players are computer players)
+        int configuredHumans = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
+        int configuredComputers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        humanPlayers = simulation ? 0 : configuredHumans;
+        computerPlayers = simulation ? configuredHumans + configuredComputers : configuredComputers;
         players = humanPlayers + computerPlayers;
-
-        hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        playerThreads = properties.getProperty("PlayerThreads", "platform");
+        playerThreadPoolSize = Integer.parseInt(properties.getProperty("PlayerThreadPoolSize",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        computerStrategy = properties.getProperty("ComputerStrategy", "random");
+        aiReactionMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSeconds", "2")) * 1000.0);
+        aiReactionDeviationMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionDeviationSeconds", "0.5")) * 1000.0);
+        aiErrorRate = Double.parseDouble(properties.getProperty("AiErrorRate", "0.1"));
+
+        hints = !simulation && Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
-        tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
-        endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
+        tableDelayMillis = simulation ? 0 : (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        endGamePauseMillies = simulation ? 0 : (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
@@ -224,6 +350,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        uiFramesPerSecond = Integer.parseInt(properties.getProperty("UiFramesPerSecond", "60"));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.SplittableRandom;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +9,47 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final GameClock clock;
+
+    /**
+     * The seed of the game's randomness, and the game's random generator. The generator is not thread safe: game
+     * entities split their own generators off it when they are constructed (see SplittableRandom.split).
+     */
+    public final long seed;
+    public final SplittableRandom random;
+
+    /**
+     * The game's counters and histograms (shared with the Util implementation when it records metrics too).
+     */
+    public final Metrics metrics;
+
+    /**
+     * Records the game's events (GameJournal.Recorder.NONE when the game is not recorded).
+     */
+    public final GameJournal.Recorder journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, config.seed);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, long seed) {
+        this(logger, config, ui, util, seed, new Metrics());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, long seed, Metrics metrics) {
+        this(logger, config, ui, util, seed, metrics, null, 0);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, long seed, Metrics metrics,
+               GameJournal journal, int game) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = new GameClock(config.simulation ? config.simulationSpeedup : 1);
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.metrics = metrics;
+        this.journal = journal == null ? GameJournal.Recorder.NONE : journal.recorder(game, clock);
     }
 }
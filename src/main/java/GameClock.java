@@ -0,0 +1,84 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The clock the game times (turn timeouts, freezes, reaction times) are measured with.
+ * In a normal game it is the wall clock. In a simulation it runs speedup times faster than the wall clock, so game
+ * durations are converted to (shorter) real durations before waiting for them. It is a scaled wall clock, not a
+ * virtual one: the game still waits in real time, only for shorter.
+ */
+public class GameClock {
+
+    /**
+     * How many game milliseconds pass in one real millisecond.
+     */
+    public final double speedup;
+
+    /**
+     * The real time (System.nanoTime) and the game time at which the clock was created.
+     */
+    private final long startNanos;
+    private final long startMillis;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * The shortest real time a thread sleeps for (see toRealSleepNanos).
+     */
+    private static final long MIN_SLEEP_NANOS = 100_000;
+
+    /**
+     * The class constructor.
+     *
+     * @param speedup - how many times faster than the wall clock the game time runs (1 for real time).
+     */
+    public GameClock(double speedup) {
+        if (speedup <= 0) throw new IllegalArgumentException("invalid clock speedup: " + speedup);
+        this.speedup = speedup;
+        this.startNanos = System.nanoTime();
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the current game time.
+     *
+     * @return - the game time in milliseconds (the wall clock time when running in real time).
+     */
+    public long millis() {
+        if (speedup == 1) return System.currentTimeMillis();
+        return startMillis + (long) ((System.nanoTime() - startNanos) * speedup / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Converts a game duration to the real duration it takes.
+     *
+     * @param gameMillis - the game duration in milliseconds.
+     * @return - the real duration in nanoseconds.
+     */
+    public long toRealNanos(long gameMillis) {
+        return (long) (TimeUnit.MILLISECONDS.toNanos(gameMillis) / speedup);
+    }
+
+    /**
+     * Converts a game duration to the real time a thread sleeps for it. At a high speedup a short game duration is a
+     * few microseconds, too short for the OS to sleep, so a thread sleeping in a loop would keep a core busy. The real
+     * time is therefore never below MIN_SLEEP_NANOS, and such a loop runs less often per game second instead.
+     *
+     * @param gameMillis - the game duration in milliseconds.
+     * @return - the real sleep time in nanoseconds.
+     */
+    public long toRealSleepNanos(long gameMillis) {
+        return Math.max(MIN_SLEEP_NANOS, toRealNanos(gameMillis));
+    }
+
+    /**
+     * Sleeps for a game duration (at least MIN_SLEEP_NANOS of real time).
+     *
+     * @param gameMillis - the game duration in milliseconds.
+     * @throws InterruptedException if the thread was interrupted while sleeping.
+     */
+    public void sleep(long gameMillis) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(toRealSleepNanos(gameMillis));
+    }
+}
@@ -0,0 +1,299 @@
+package bguspl.set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * A binary journal of game events, with fixed-size records appended to a memory-mapped file.
+ * An append claims the next record with one atomic increment and writes it straight into the mapped memory, so
+ * recording costs no system call except when a new segment of the file is mapped (every SEGMENT_RECORDS records).
+ * Any number of games (and threads) may append to the same journal; every record has the index of its game.
+ * When the journal is closed the number of records is written into the header and the file is truncated to them.
+ * Where the file cannot be truncated (e.g. on Windows while segments are still mapped) it keeps its empty padding
+ * records, which the reader skips. See JournalReplayer for reading it.
+ *
+ * Header layout (the first record): the magic number (long), the format version (int), the record size (int) and the
+ * number of records including the header (long, written on close, 0 if the journal was never closed).
+ *
+ * Record layout (RECORD_SIZE bytes, big-endian):
+ * 0  long  - the game clock time of the event (milliseconds).
+ * 8  int   - the game index.
+ * 12 byte  - the event type (Event.code, 0 for a record that was never written).
+ * 14 short - the player id (NO_PLAYER if none).
+ * 16 int   - the slot (NO_SLOT if none).
+ * 20 int   - the event value (see Event).
+ */
+public class GameJournal implements Closeable {
+
+    /**
+     * The kinds of events recorded, and the meaning of their value.
+     */
+    public enum Event {
+        /** A card was placed in a slot (value: the card). */
+        CARD_PLACED,
+        /** The card of a slot was removed (value: the card). */
+        CARD_REMOVED,
+        /** A player placed a token on a slot. */
+        TOKEN_PLACED,
+        /** A token of a player was removed from a slot. */
+        TOKEN_REMOVED,
+        /** The tokens of all the players were removed from a slot. */
+        TOKENS_REMOVED,
+        /** All the tokens were removed from the table. */
+        TOKENS_CLEARED,
+        /** A player claimed a set. */
+        CLAIM,
+        /** The dealer checked a claim (value: one of the VERDICT constants). */
+        VERDICT,
+        /** The score of a player changed (value: the new score). */
+        SCORE,
+        /** A player was frozen or unfrozen (value: the freeze time left in milliseconds, 0 when unfrozen). */
+        FREEZE,
+        /** The dealer returned all the cards to the deck (turn timeout or no legal set on the table). */
+        RESHUFFLE;
+
+        /**
+         * The code of the event in a record (0 marks an empty record).
+         */
+        public final byte code = (byte) (ordinal() + 1);
+
+        private static final Event[] BY_CODE = values();
+
+        /**
+         * Returns the event with a given code.
+         *
+         * @param code - the code read from a record.
+         * @return - the event, or null if the code is not an event.
+         */
+        public static Event of(int code) {
+            return code >= 1 && code <= BY_CODE.length ? BY_CODE[code - 1] : null;
+        }
+    }
+
+    /**
+     * MAGIC-NUMBERS
+     *
+     * The file header (magic number, format version, record size and the offset of the record count), the record
+     * size, the number of records in a mapped segment of the file, the maximum number of segments and the values of
+     * VERDICT events.
+     */
+    public static final long MAGIC = 0x5345544A524E4C31L; // "SETJRNL1"
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 24;
+    public static final int HEADER_SIZE = RECORD_SIZE;
+    public static final int HEADER_RECORDS_OFFSET = 16;
+    public static final int NO_PLAYER = -1;
+    public static final int NO_SLOT = -1;
+    public static final int VERDICT_DROPPED = -1;
+    public static final int VERDICT_INVALID = 0;
+    public static final int VERDICT_VALID = 1;
+    private static final int SEGMENT_RECORDS = 1 << 18;
+    private static final long SEGMENT_SIZE = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    private static final int MAX_SEGMENTS = 4096;
+
+    private final Logger logger;
+
+    /**
+     * The journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped segments of the file (mapped on first use).
+     */
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+
+    /**
+     * The number of records claimed so far (the header is record 0).
+     */
+    private final AtomicLong records;
+
+    /**
+     * The number of records dropped because the file reached its maximum size or could not be mapped.
+     */
+    private final AtomicLong dropped;
+
+    private volatile boolean closed;
+
+    /**
+     * The class constructor. Creates (or replaces) the journal file.
+     *
+     * @param logger - the logger (for mapping errors).
+     * @param file   - the journal file.
+     * @throws IOException if the file cannot be created.
+     */
+    public GameJournal(Logger logger, Path file) throws IOException {
+        this.logger = logger;
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+        this.records = new AtomicLong(1);
+        this.dropped = new AtomicLong();
+        MappedByteBuffer header = segment(0);
+        header.putLong(0, MAGIC);
+        header.putInt(8, VERSION);
+        header.putInt(12, RECORD_SIZE);
+    }
+
+    /**
+     * Opens the journal file of a configuration.
+     *
+     * @param logger - the logger.
+     * @param file   - the journal file (Config.journalFile).
+     * @return - the journal, or null if no file is configured or it cannot be created.
+     */
+    public static GameJournal open(Logger logger, String file) {
+        if (file.isEmpty()) return null;
+        try {
+            return new GameJournal(logger, Paths.get(file));
+        } catch (IOException e) {
+            logger.severe("cannot create the game journal " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the recorder a game appends its events with.
+     *
+     * @param game  - the index of the game.
+     * @param clock - the game's clock (the time of the events).
+     * @return - the recorder.
+     */
+    public Recorder recorder(int game, GameClock clock) {
+        return new Recorder(this, game, clock);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param millis - the game time of the event.
+     * @param game   - the game index.
+     * @param event  - the event type.
+     * @param player - the player id (or NO_PLAYER).
+     * @param slot   - the slot (or NO_SLOT).
+     * @param value  - the event value.
+     */
+    public void append(long millis, int game, Event event, int player, int slot, int value) {
+        if (closed) return;
+        long record = records.getAndIncrement();
+        MappedByteBuffer segment = segment((int) (record / SEGMENT_RECORDS));
+        if (segment == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        int offset = (int) (record % SEGMENT_RECORDS) * RECORD_SIZE;
+        segment.putLong(offset, millis);
+        segment.putInt(offset + 8, game);
+        segment.putShort(offset + 14, (short) player);
+        segment.putInt(offset + 16, slot);
+        segment.putInt(offset + 20, value);
+        segment.put(offset + 12, event.code); // written last, a record with code 0 is skipped by the reader
+    }
+
+    /**
+     * Returns a mapped segment of the file, mapping it if needed.
+     *
+     * @param index - the segment index.
+     * @return - the segment, or null if it is past the maximum size or cannot be mapped.
+     */
+    private MappedByteBuffer segment(int index) {
+        if (index >= MAX_SEGMENTS) return null;
+        MappedByteBuffer segment = segments.get(index);
+        if (segment != null) return segment;
+        synchronized (segments) {
+            segment = segments.get(index);
+            if (segment == null) {
+                try {
+                    segment = channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_SIZE, SEGMENT_SIZE);
+                    segments.set(index, segment);
+                } catch (IOException e) {
+                    logger.severe("cannot map the game journal: " + e);
+                }
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Returns the number of records appended.
+     *
+     * @return - the number of event records in the journal.
+     */
+    public long size() {
+        return Math.min(records.get(), (long) MAX_SEGMENTS * SEGMENT_RECORDS) - 1 - dropped.get();
+    }
+
+    /**
+     * Writes the number of records into the header, writes the mapped segments to the disk and truncates the file
+     * to the records appended. Events appended after this are ignored.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        long count = Math.min(records.get(), (long) MAX_SEGMENTS * SEGMENT_RECORDS);
+        try {
+            synchronized (segments) {
+                segments.get(0).putLong(HEADER_RECORDS_OFFSET, count);
+                for (int i = 0; i < MAX_SEGMENTS && segments.get(i) != null; i++) {
+                    segments.get(i).force();
+                }
+            }
+            channel.truncate(count * RECORD_SIZE);
+        } catch (IOException e) {
+            // the reader stops at the record count of the header, so a file left padded is still complete
+            logger.warning("cannot truncate the game journal: " + e);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.severe("cannot close the game journal: " + e);
+            }
+        }
+        if (dropped.get() > 0) logger.severe("the game journal dropped " + dropped.get() + " events.");
+    }
+
+    /**
+     * Appends the events of one game, at the time of the game's clock. A recorder without a journal (NONE)
+     * records nothing.
+     */
+    public static final class Recorder {
+
+        /**
+         * The recorder of a game that is not recorded.
+         */
+        public static final Recorder NONE = new Recorder(null, 0, null);
+
+        private final GameJournal journal;
+        private final int game;
+        private final GameClock clock;
+
+        private Recorder(GameJournal journal, int game, GameClock clock) {
+            this.journal = journal;
+            this.game = game;
+            this.clock = clock;
+        }
+
+        /**
+         * Records an event of the game.
+         *
+         * @param event  - the event type.
+         * @param player - the player id (or NO_PLAYER).
+         * @param slot   - the slot (or NO_SLOT).
+         * @param value  - the event value.
+         */
+        public void append(Event event, int player, int slot, int value) {
+            if (journal != null) journal.append(clock.millis(), game, event, player, slot, value);
+        }
+    }
+}
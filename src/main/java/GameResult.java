@@ -0,0 +1,80 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The result of one game played in a tournament.
+ */
+public class GameResult {
+
+    /**
+     * The index of the game in the tournament.
+     */
+    public final int game;
+
+    /**
+     * The name of the configuration the game was played with.
+     */
+    public final String configName;
+
+    /**
+     * The seed of the game's random generator (replaying the game with it gives the same deck shuffles).
+     */
+    public final long seed;
+
+    /**
+     * The final score and the number of penalties of each player.
+     */
+    public final int[] scores;
+    public final int[] penalties;
+
+    /**
+     * The ids of the players with the highest score.
+     */
+    public final int[] winners;
+
+    /**
+     * The real time the game took, in nanoseconds.
+     */
+    public final long durationNanos;
+
+    /**
+     * The class constructor.
+     *
+     * @param game          - the index of the game in the tournament.
+     * @param configName    - the name of the configuration the game was played with.
+     * @param seed          - the seed of the game's random generator.
+     * @param scores        - the final score of each player.
+     * @param penalties     - the number of penalties of each player.
+     * @param durationNanos - the real time the game took.
+     */
+    public GameResult(int game, String configName, long seed, int[] scores, int[] penalties, long durationNanos) {
+        this.game = game;
+        this.configName = configName;
+        this.seed = seed;
+        this.scores = scores;
+        this.penalties = penalties;
+        this.durationNanos = durationNanos;
+        int max = Arrays.stream(scores).max().orElse(0);
+        this.winners = IntStream.range(0, scores.length).filter(player -> scores[player] == max).toArray();
+    }
+
+    /**
+     * Returns the number of sets found in the game (each set found scores one point).
+     *
+     * @return - the sum of the scores.
+     */
+    public int setsFound() {
+        return Arrays.stream(scores).sum();
+    }
+
+    /**
+     * Returns the number of penalties given in the game.
+     *
+     * @return - the sum of the penalties.
+     */
+    public int totalPenalties() {
+        return Arrays.stream(penalties).sum();
+    }
+}
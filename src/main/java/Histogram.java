@@ -0,0 +1,124 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of non-negative long values (e.g. latencies in nanoseconds) with log-linear buckets: every power of 2
+ * is split into SUB_BUCKETS equal buckets, so a percentile is reported within 1/SUB_BUCKETS of the real value.
+ * Values may be recorded by any thread, without locks and without allocating.
+ */
+public class Histogram {
+
+    /**
+     * Every power of 2 range is split into 2^SUB_BUCKET_BITS buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for every positive long value.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * The number of values recorded, their sum and the largest one.
+     */
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    /**
+     * The class constructor.
+     */
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value (negative values are recorded as 0).
+     *
+     * @param value - the value to record.
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     */
+    private static long bucketHighestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns a percentile of the recorded values.
+     *
+     * @param percentile - the percentile (0 to 100).
+     * @return - the smallest bucket value such that at least percentile percent of the values are not above it
+     *           (0 if no value was recorded).
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) return Math.min(bucketHighestValue(bucket), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return - the number of values.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return - the maximum (0 if no value was recorded).
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return - the mean (0 if no value was recorded).
+     */
+    public double mean() {
+        long total = count.get();
+        return total == 0 ? 0 : sum.get() / (double) total;
+    }
+}
@@ -5,6 +5,7 @@ import bguspl.set.ex.Player;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -42,8 +43,9 @@ class InputManager extends KeyAdapter {
         // dispatch the key event to the player according to the key map
         int keyCode = e.getKeyCode();
         int player = keyMap[keyCode] - 1;
-        if (player >= 0){
-            logger.severe("key " + keyCode + " was pressed by player " + (player + 1));
+        if (player >= 0 && players[player] != null){
+            if (logger.isLoggable(Level.SEVERE))
+                logger.log(Level.SEVERE, "key {0,number,#} was pressed by player {1,number,#}", new Object[]{keyCode, player + 1});
             players[player].keyPressed(keyToSlot[keyCode]);
         }
     }
@@ -0,0 +1,167 @@
+package bguspl.set;
+
+import bguspl.set.ex.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Replays the events of a game from a journal (see GameJournal) into a user interface.
+ * The journal is streamed through a fixed buffer, so a journal of any size is replayed in constant memory.
+ * The events are replayed at their recorded game times, speedup times faster than real time.
+ */
+public class JournalReplayer {
+
+    /**
+     * The journal file.
+     */
+    private final Path file;
+
+    /**
+     * The number of records in the file including the header, from the header (0 if the journal was not closed).
+     */
+    private final long records;
+
+    /**
+     * MAGIC-NUMBERS
+     *
+     * The number of records read from the file at a time.
+     */
+    private static final int BUFFER_RECORDS = 4096;
+
+    /**
+     * The class constructor. Checks the journal header.
+     *
+     * @param file - the journal file.
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public JournalReplayer(Path file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(GameJournal.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            if (header.hasRemaining() || header.getLong(0) != GameJournal.MAGIC
+                    || header.getInt(8) != GameJournal.VERSION || header.getInt(12) != GameJournal.RECORD_SIZE)
+                throw new IOException(file + " is not a game journal (version " + GameJournal.VERSION + ")");
+            records = header.getLong(GameJournal.HEADER_RECORDS_OFFSET);
+        }
+    }
+
+    /**
+     * Replays the events of one game into a user interface, waiting between the events. At the end the players
+     * with the highest score (among the players that appear in the journal) are announced as the winners.
+     *
+     * @param game    - the index of the game to replay.
+     * @param ui      - the user interface to replay into.
+     * @param speedup - how many times faster than real time to replay (0 or less - without waiting).
+     * @return - the number of events replayed.
+     * @throws IOException          if the file cannot be read.
+     * @throws InterruptedException if the thread was interrupted while waiting for the next event.
+     */
+    public long replay(int game, UserInterface ui, double speedup) throws IOException, InterruptedException {
+        int[] scores = new int[0];
+        long events = 0;
+        long firstMillis = 0;
+        long startNanos = 0;
+        long left = records > 0 ? records - 1 : Long.MAX_VALUE; // the padding of an untruncated file is not read
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * GameJournal.RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(GameJournal.HEADER_SIZE);
+            while (left > 0) {
+                int read = channel.read(buffer);
+                buffer.flip();
+                while (left > 0 && buffer.remaining() >= GameJournal.RECORD_SIZE) {
+                    left--;
+                    int offset = buffer.position();
+                    buffer.position(offset + GameJournal.RECORD_SIZE);
+                    GameJournal.Event event = GameJournal.Event.of(buffer.get(offset + 12));
+                    if (event == null || buffer.getInt(offset + 8) != game) continue;
+
+                    long millis = buffer.getLong(offset);
+                    if (events++ == 0) {
+                        firstMillis = millis;
+                        startNanos = System.nanoTime();
+                    } else if (speedup > 0) {
+                        long wait = startNanos + (long) ((millis - firstMillis) * 1e6 / speedup) - System.nanoTime();
+                        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    int player = buffer.getShort(offset + 14);
+                    int slot = buffer.getInt(offset + 16);
+                    int value = buffer.getInt(offset + 20);
+                    if (player >= scores.length) scores = Arrays.copyOf(scores, player + 1);
+                    if (event == GameJournal.Event.SCORE) scores[player] = value;
+                    dispatch(ui, event, player, slot, value);
+                }
+                buffer.compact(); // keeps a record that was read in part
+                if (read < 0) break;
+            }
+        }
+        if (events > 0 && scores.length > 0) ui.announceWinner(winners(scores));
+        return events;
+    }
+
+    private static void dispatch(UserInterface ui, GameJournal.Event event, int player, int slot, int value) {
+        switch (event) {
+            case CARD_PLACED:
+                ui.placeCard(value, slot);
+                break;
+            case CARD_REMOVED:
+                ui.removeCard(slot);
+                break;
+            case TOKEN_PLACED:
+                ui.placeToken(player, slot);
+                break;
+            case TOKEN_REMOVED:
+                ui.removeToken(player, slot);
+                break;
+            case TOKENS_REMOVED:
+                ui.removeTokens(slot);
+                break;
+            case TOKENS_CLEARED:
+                ui.removeTokens();
+                break;
+            case SCORE:
+                ui.setScore(player, value);
+                break;
+            case FREEZE:
+                ui.setFreeze(player, value);
+                break;
+            default:
+                // claims, verdicts and reshuffles are not displayed
+        }
+    }
+
+    private static int[] winners(int[] scores) {
+        int max = Arrays.stream(scores).max().orElse(0);
+        return IntStream.range(0, scores.length).filter(player -> scores[player] == max).toArray();
+    }
+
+    /**
+     * Replays a game from a journal in the game window (configured by config.properties).
+     *
+     * @param args - the journal file, and optionally the game index (default 0) and the speedup (default 1).
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: JournalReplayer <journal file> [game] [speedup]");
+            return;
+        }
+        int game = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        double speedup = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+        Logger logger = Logger.getLogger("SetGameReplayLogger");
+        Config config = new Config(logger, "config.properties");
+        JournalReplayer replayer = new JournalReplayer(Paths.get(args[0]));
+        UserInterface ui = new UserInterfaceDispatcher(config,
+                new UserInterfaceSwing(logger, config, new Player[config.players]));
+        long events = replayer.replay(game, ui, speedup);
+        System.out.println("replayed " + events + " events of game " + game + ".");
+    }
+}
@@ -6,6 +6,7 @@ import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -27,7 +28,7 @@ public class Main {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
         if (dealer != null) dealer.terminate();
-        mainThread.join();
+        if (mainThread != null) mainThread.join();
     }
 
     /**
@@ -43,12 +44,22 @@ public class Main {
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        logger.severe("random seed: " + config.seed);
+        Metrics metrics = new Metrics();
+        Util util = new UtilImpl(config, metrics);
+
+        if (config.simulation) {
+            new Simulation(logger, config, metrics).run();
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            closeLogHandlers();
+            return;
+        }
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
         try {
-            ui = new UserInterfaceSwing(logger, config, players);
+            // the game threads update the window through the dispatcher, which applies the updates on the EDT
+            ui = new UserInterfaceDispatcher(config, new UserInterfaceSwing(logger, config, players));
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -57,7 +68,9 @@ public class Main {
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
 
-        Env env = new Env(logger, config, ui, util);
+        GameJournal journal = GameJournal.open(logger, config.journalFile);
+        Env env = new Env(logger, config, ui, util, config.seed, metrics, journal, 0);
+        metrics.startDumping(logger, config.metricsDumpMillis);
 
         // create the game entities
         Table table = new Table(env);
@@ -78,8 +91,21 @@ public class Main {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            metrics.stopDumping();
+            metrics.dump(logger);
+            if (journal != null) journal.close();
             if (!xButtonPressed) env.ui.dispose();
-            for (Handler h : logger.getHandlers()) h.flush();
+            closeLogHandlers();
+        }
+    }
+
+    /**
+     * Writes the remaining log records and closes the log handlers (stops the writer thread and closes the file).
+     */
+    private static void closeLogHandlers() {
+        for (Handler h : logger.getHandlers()) {
+            h.flush();
+            h.close();
         }
     }
 
@@ -87,11 +113,13 @@ public class Main {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            // the game threads only enqueue records, a background thread formats them and writes them to the file
+            handler = new AsyncLogHandler(Paths.get("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log"),
+                    AsyncLogHandler.DEFAULT_CAPACITY);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -108,10 +136,11 @@ public class Main {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+            // the message parameters (if any) are formatted here, i.e. on the log writer thread
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr)
                 );
             }
         }));
@@ -0,0 +1,121 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A registry of named counters and histograms, for seeing where time goes in a running game without parsing logs.
+ * Counters are LongAdders and histograms are lock-free (see Histogram), so recording never blocks. Hot paths should
+ * look their counters and histograms up once (e.g. in a constructor) and keep them in fields.
+ */
+public class Metrics {
+
+    /**
+     * The counters and histograms by name, kept sorted for the dumps.
+     */
+    private final Map<String, LongAdder> counters;
+    private final Map<String, Histogram> histograms;
+
+    /**
+     * Runs the periodic dumps (null if not started).
+     */
+    private ScheduledExecutorService dumper;
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * The class constructor.
+     */
+    public Metrics() {
+        this.counters = new ConcurrentSkipListMap<>();
+        this.histograms = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Returns a counter, creating it on first use.
+     *
+     * @param name - the name of the counter.
+     * @return - the counter.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Returns a histogram, creating it on first use.
+     *
+     * @param name - the name of the histogram (by convention ending with the unit, e.g. Nanos).
+     * @return - the histogram.
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Formats the current values: one line per counter, and one line per histogram with its count, mean,
+     * percentiles and maximum (nanosecond histograms are shown in microseconds).
+     *
+     * @return - the lines of the dump, sorted by name.
+     */
+    public List<String> dump() {
+        List<String> lines = new ArrayList<>();
+        counters.forEach((name, counter) -> lines.add(name + " = " + counter.sum()));
+        histograms.forEach((name, histogram) -> {
+            boolean nanos = name.endsWith("Nanos");
+            double scale = nanos ? NANOS_PER_MICRO : 1;
+            String unit = nanos ? "us" : "";
+            lines.add(String.format("%s: count=%d mean=%.1f%s p50=%.1f%s p99=%.1f%s p99.9=%.1f%s max=%.1f%s",
+                    nanos ? name.substring(0, name.length() - "Nanos".length()) : name, histogram.count(),
+                    histogram.mean() / scale, unit, histogram.percentile(50) / scale, unit,
+                    histogram.percentile(99) / scale, unit, histogram.percentile(99.9) / scale, unit,
+                    histogram.max() / scale, unit));
+        });
+        return lines;
+    }
+
+    /**
+     * Writes the current values to a logger.
+     *
+     * @param logger - the logger.
+     */
+    public void dump(Logger logger) {
+        StringBuilder message = new StringBuilder("metrics:");
+        for (String line : dump()) {
+            message.append(System.lineSeparator()).append("    ").append(line);
+        }
+        logger.severe(message.toString());
+    }
+
+    /**
+     * Starts writing the current values to a logger periodically, on a daemon thread.
+     *
+     * @param logger       - the logger.
+     * @param periodMillis - the time between two dumps.
+     */
+    public synchronized void startDumping(Logger logger, long periodMillis) {
+        if (dumper != null || periodMillis <= 0) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(logger), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic dumps.
+     */
+    public synchronized void stopDumping() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs a headless simulation: config.simulationGames games of computer players, config.simulationThreads of them at
+ * the same time (see Tournament), with no user interface and a game clock that runs config.simulationSpeedup times
+ * faster than the wall clock. Reports the number of games per second and the results per configuration.
+ */
+public class Simulation {
+
+    private final Logger logger;
+    private final Config config;
+    private final Metrics metrics;
+
+    /**
+     * The class constructor.
+     *
+     * @param logger - the logger.
+     * @param config  - the game configuration (with config.simulation set).
+     * @param metrics - the metrics all the games record to.
+     */
+    public Simulation(Logger logger, Config config, Metrics metrics) {
+        this.logger = logger;
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs all the games and reports the results.
+     */
+    public void run() {
+        List<Config> configs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        configs.add(config);
+        names.add("config.properties");
+        for (String filename : config.simulationConfigs) {
+            Config other = new Config(logger, filename);
+            if (other.simulation) {
+                configs.add(other);
+                names.add(filename);
+            } else {
+                logger.severe("skipping " + filename + ": it is not a simulation configuration (Simulation=True).");
+            }
+        }
+
+        long start = System.nanoTime();
+        List<GameResult> results;
+        GameJournal journal = GameJournal.open(logger, config.journalFile);
+        try {
+            metrics.startDumping(logger, config.metricsDumpMillis);
+            results = new Tournament(logger, configs, names, config.simulationGames, config.simulationThreads,
+                    metrics, journal).run();
+        } catch (InterruptedException e) {
+            report("simulation interrupted.");
+            metrics.stopDumping();
+            return;
+        } finally {
+            if (journal != null) journal.close();
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        report(String.format("simulated %d games in %.2f seconds (%.1f games per second, %d at a time, seed %d)",
+                results.size(), seconds, results.size() / seconds, config.simulationThreads, config.seed));
+        Tournament.summarize(results).forEach(this::report);
+        if (journal != null) report("recorded " + journal.size() + " game events to " + config.journalFile);
+        metrics.stopDumping();
+        metrics.dump(logger);
+    }
+
+    private void report(String message) {
+        logger.severe(message);
+        System.out.println(message);
+    }
+}
@@ -0,0 +1,201 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runs many independent headless games at the same time on a bounded pool of threads.
+ * Every game has its own Env, Table, Dealer and Players, and the games rotate through the given configurations.
+ * The dealer of each game runs on a pool thread (its players run as configured in Config.playerThreads).
+ */
+public class Tournament {
+
+    private final Logger logger;
+
+    /**
+     * The configurations the games are played with (game i uses configs.get(i % configs.size())).
+     */
+    private final List<Config> configs;
+
+    /**
+     * The names of the configurations (e.g. their file names), for the report.
+     */
+    private final List<String> configNames;
+
+    /**
+     * The utilities of each configuration (shared by all the games played with it).
+     */
+    private final List<Util> utils;
+
+    /**
+     * The seed of each game, drawn from the seed of the first configuration (so a tournament is reproducible).
+     */
+    private final long[] seeds;
+
+    /**
+     * The number of games to play and the number of games played at the same time.
+     */
+    private final int games;
+    private final int threads;
+
+    /**
+     * The metrics all the games record to.
+     */
+    private final Metrics metrics;
+
+    /**
+     * The journal all the games record their events to (null if the games are not recorded).
+     */
+    private final GameJournal journal;
+
+    /**
+     * The class constructor.
+     *
+     * @param logger      - the logger.
+     * @param configs     - the configurations to play with.
+     * @param configNames - the names of the configurations.
+     * @param games       - the number of games to play.
+     * @param threads     - the number of games played at the same time.
+     * @param metrics     - the metrics all the games record to.
+     */
+    public Tournament(Logger logger, List<Config> configs, List<String> configNames, int games, int threads,
+                      Metrics metrics) {
+        this(logger, configs, configNames, games, threads, metrics, null);
+    }
+
+    /**
+     * The class constructor.
+     *
+     * @param logger      - the logger.
+     * @param configs     - the configurations to play with.
+     * @param configNames - the names of the configurations.
+     * @param games       - the number of games to play.
+     * @param threads     - the number of games played at the same time.
+     * @param metrics     - the metrics all the games record to.
+     * @param journal     - the journal the games record their events to (game i as game index i), or null.
+     */
+    public Tournament(Logger logger, List<Config> configs, List<String> configNames, int games, int threads,
+                      Metrics metrics, GameJournal journal) {
+        this.metrics = metrics;
+        this.journal = journal;
+        this.logger = logger;
+        this.configs = configs;
+        this.configNames = configNames;
+        this.games = games;
+        this.threads = Math.max(1, threads);
+        this.utils = new ArrayList<>();
+        for (Config config : configs) {
+            utils.add(new UtilImpl(config, metrics));
+        }
+        SplittableRandom random = new SplittableRandom(configs.get(0).seed);
+        this.seeds = new long[games];
+        for (int game = 0; game < games; game++) {
+            seeds[game] = random.nextLong();
+        }
+    }
+
+    /**
+     * Plays all the games.
+     *
+     * @return - the results of the games, in game order.
+     * @throws InterruptedException if the thread was interrupted while waiting for the games.
+     */
+    public List<GameResult> run() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tournament-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>();
+            for (int game = 0; game < games; game++) {
+                int index = game;
+                futures.add(pool.submit(() -> playGame(index)));
+            }
+            List<GameResult> results = new ArrayList<>();
+            for (Future<GameResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    logger.severe("a tournament game failed: " + e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game in the current thread.
+     *
+     * @param game - the index of the game.
+     * @return - the result of the game.
+     */
+    private GameResult playGame(int game) {
+        int configIndex = game % configs.size();
+        Config config = configs.get(configIndex);
+        Env env = new Env(logger, config, new HeadlessUserInterface(), utils.get(configIndex), seeds[game],
+                metrics, journal, game);
+        Player[] players = new Player[config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+        long start = System.nanoTime();
+        dealer.run();
+        int[] scores = new int[players.length];
+        int[] penalties = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            scores[i] = players[i].score();
+            penalties[i] = players[i].penalties();
+        }
+        return new GameResult(game, configNames.get(configIndex), seeds[game], scores, penalties,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Sums up the results per configuration: games played, wins per player, and the average number of sets found,
+     * penalties and game duration.
+     *
+     * @param results - the results of the games.
+     * @return - one line per configuration.
+     */
+    public static List<String> summarize(List<GameResult> results) {
+        Map<String, List<GameResult>> byConfig = new LinkedHashMap<>();
+        for (GameResult result : results) {
+            byConfig.computeIfAbsent(result.configName, name -> new ArrayList<>()).add(result);
+        }
+        List<String> lines = new ArrayList<>();
+        byConfig.forEach((name, configResults) -> {
+            int[] wins = new int[configResults.get(0).scores.length];
+            long sets = 0, penalties = 0, nanos = 0;
+            for (GameResult result : configResults) {
+                for (int winner : result.winners) wins[winner]++;
+                sets += result.setsFound();
+                penalties += result.totalPenalties();
+                nanos += result.durationNanos;
+            }
+            int n = configResults.size();
+            lines.add(String.format("%s: %d games, wins per player %s, %.1f sets, %.1f penalties, %.1f ms per game",
+                    name, n, Arrays.toString(wins), sets / (double) n, penalties / (double) n,
+                    nanos / 1e6 / n));
+        });
+        return lines;
+    }
+}
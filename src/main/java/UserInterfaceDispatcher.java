@@ -0,0 +1,261 @@
+package bguspl.set;
+
+import bguspl.set.ex.AtomicBitSet;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Passes the game's user interface updates to a Swing user interface on the event dispatch thread (EDT), at most
+ * config.uiFramesPerSecond times a second.
+ * The game threads never touch Swing: they only write the latest state (the card in every slot, the players with a
+ * token on it, the timer, every player's freeze and score) with lock-free atomic updates and mark what changed.
+ * Once a frame the EDT applies the difference between the latest state and the state it shows, so the updates in
+ * between are merged: only the latest countdown is shown, and a token placed and removed within a frame is never
+ * shown at all.
+ */
+public class UserInterfaceDispatcher implements UserInterface {
+
+    /**
+     * The user interface updated on the EDT.
+     */
+    private final UserInterface ui;
+
+    /**
+     * The latest state, written by the game threads.
+     */
+    private final AtomicIntegerArray cards;
+    private final AtomicBitSet[] tokens;
+    private final AtomicLong timer;
+    private final AtomicLongArray freezes;
+    private final AtomicIntegerArray scores;
+    private final AtomicReference<int[]> winners;
+
+    /**
+     * The slots and the players whose state changed since the last frame, and whether anything changed.
+     */
+    private final AtomicBitSet dirtySlots;
+    private final AtomicBitSet dirtyPlayers;
+    private final AtomicBoolean dirty;
+
+    /**
+     * The state shown by the user interface (EDT only).
+     */
+    private final int[] shownCards;
+    private final boolean[][] shownTokens;
+    private long shownTimer;
+    private final long[] shownFreezes;
+    private final int[] shownScores;
+    private boolean winnersShown;
+
+    /**
+     * Runs the frames on the EDT.
+     */
+    private final Timer frames;
+
+    /**
+     * MAGIC-NUMBERS
+     *
+     * An empty slot, and the modes of the timer display (in the low bits of the encoded timer, the milliseconds are
+     * in the other bits).
+     */
+    private static final int NO_CARD = -1;
+    private static final int TIMER_NONE = 0;
+    private static final int TIMER_COUNTDOWN = 1;
+    private static final int TIMER_WARNING = 2;
+    private static final int TIMER_ELAPSED = 3;
+    private static final int TIMER_MODE_BITS = 2;
+    private static final int TIMER_MODE_MASK = (1 << TIMER_MODE_BITS) - 1;
+
+    /**
+     * The class constructor. Starts the frames.
+     *
+     * @param config - the game configuration (table size, players and frame rate).
+     * @param ui     - the Swing user interface to update.
+     */
+    public UserInterfaceDispatcher(Config config, UserInterface ui) {
+        this.ui = ui;
+        this.cards = new AtomicIntegerArray(config.tableSize);
+        this.tokens = new AtomicBitSet[config.tableSize];
+        this.shownCards = new int[config.tableSize];
+        for (int slot = 0; slot < config.tableSize; slot++) {
+            cards.set(slot, NO_CARD);
+            tokens[slot] = new AtomicBitSet(config.players);
+            shownCards[slot] = NO_CARD;
+        }
+        this.shownTokens = new boolean[config.tableSize][config.players];
+        this.timer = new AtomicLong(TIMER_NONE);
+        this.freezes = new AtomicLongArray(config.players);
+        this.scores = new AtomicIntegerArray(config.players);
+        this.winners = new AtomicReference<>();
+        this.shownFreezes = new long[config.players];
+        this.shownScores = new int[config.players];
+        this.dirtySlots = new AtomicBitSet(config.tableSize);
+        this.dirtyPlayers = new AtomicBitSet(config.players);
+        this.dirty = new AtomicBoolean();
+        this.frames = new Timer(1000 / Math.max(1, config.uiFramesPerSecond), event -> applyChanges());
+        frames.setCoalesce(true);
+        frames.start();
+    }
+
+    private void slotChanged(int slot) {
+        dirtySlots.set(slot);
+        dirty.set(true);
+    }
+
+    private void playerChanged(int player) {
+        dirtyPlayers.set(player);
+        dirty.set(true);
+    }
+
+    private void timerChanged(long millies, int mode) {
+        timer.set(millies << TIMER_MODE_BITS | mode);
+        dirty.set(true);
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        cards.set(slot, card);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        cards.set(slot, NO_CARD);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        tokens[slot].set(player);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        for (int slot = 0; slot < tokens.length; slot++) {
+            removeTokens(slot);
+        }
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        tokens[slot].clearAll();
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        tokens[slot].clear(player);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        timerChanged(millies, warn ? TIMER_WARNING : TIMER_COUNTDOWN);
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        timerChanged(millies, TIMER_ELAPSED);
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        freezes.set(player, millies);
+        playerChanged(player);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        playerChanged(player);
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        winners.set(players.clone());
+        dirty.set(true);
+    }
+
+    /**
+     * Applies the changes since the last frame to the user interface. Runs on the EDT.
+     */
+    private void applyChanges() {
+        if (!dirty.getAndSet(false)) return;
+        dirtySlots.drain(this::applySlot);
+        dirtyPlayers.drain(this::applyPlayer);
+        long latestTimer = timer.get();
+        if (latestTimer != shownTimer) {
+            shownTimer = latestTimer;
+            long millies = latestTimer >> TIMER_MODE_BITS;
+            switch ((int) (latestTimer & TIMER_MODE_MASK)) {
+                case TIMER_COUNTDOWN:
+                    ui.setCountdown(millies, false);
+                    break;
+                case TIMER_WARNING:
+                    ui.setCountdown(millies, true);
+                    break;
+                case TIMER_ELAPSED:
+                    ui.setElapsed(millies);
+                    break;
+                default:
+            }
+        }
+        int[] latestWinners = winners.get();
+        if (latestWinners != null && !winnersShown) {
+            winnersShown = true;
+            ui.announceWinner(latestWinners);
+        }
+    }
+
+    private void applySlot(int slot) {
+        int card = cards.get(slot);
+        if (card != shownCards[slot]) {
+            shownCards[slot] = card;
+            if (card == NO_CARD) ui.removeCard(slot);
+            else ui.placeCard(card, slot);
+        }
+        boolean[] shown = shownTokens[slot];
+        for (int player = 0; player < shown.length; player++) {
+            boolean token = tokens[slot].get(player);
+            if (token != shown[player]) {
+                shown[player] = token;
+                if (token) ui.placeToken(player, slot);
+                else ui.removeToken(player, slot);
+            }
+        }
+    }
+
+    private void applyPlayer(int player) {
+        long freeze = freezes.get(player);
+        if (freeze != shownFreezes[player]) {
+            shownFreezes[player] = freeze;
+            ui.setFreeze(player, freeze);
+        }
+        int score = scores.get(player);
+        if (score != shownScores[player]) {
+            shownScores[player] = score;
+            ui.setScore(player, score);
+        }
+    }
+
+    /**
+     * Stops the frames, applies the last changes and disposes of the user interface (on the EDT).
+     */
+    @Override
+    public void dispose() {
+        Runnable last = () -> {
+            frames.stop();
+            applyChanges();
+            ui.dispose();
+        };
+        if (SwingUtilities.isEventDispatchThread()) last.run();
+        else SwingUtilities.invokeLater(last);
+    }
+}
@@ -152,23 +152,37 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             int row = slot / config.columns;
             int column = slot % config.columns;
             grid[row][column] = deck[card];
-            validate();
-            repaint();
+            repaintCell(row, column);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
             grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            repaintCell(row, column);
+        }
+
+        /**
+         * Repaints only the rectangle of one cell (the cards are drawn at fixed positions, so nothing else changes).
+         */
+        private void repaintCell(int row, int column) {
+            repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
+        }
+
+        /**
+         * Updates the token overlay of a cell, only if its text changed (the label repaints its own cell only).
+         */
+        private void updateTokenText(int row, int column) {
+            String text = generatePlayersTokenText(row, column);
+            if (!text.equals(tokenText[row][column].getText()))
+                tokenText[row][column].setText(text);
         }
 
         private void placeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
             playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            updateTokenText(row, column);
         }
 
         private void removeTokens() {
@@ -181,15 +195,15 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             int column = slot % config.columns;
             for (int player = 0; player < playerTokens.length; player++) {
                 playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
             }
+            updateTokenText(row, column);
         }
 
         private void removeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
             playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            updateTokenText(row, column);
         }
 
         private String generatePlayersTokenText(int row, int column) {
@@ -205,9 +219,17 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
+            // draw the card images of the cells in the area being repainted only
+            Rectangle clip = g.getClipBounds();
+            int firstRow = 0, lastRow = config.rows - 1, firstColumn = 0, lastColumn = config.columns - 1;
+            if (clip != null) {
+                firstRow = Math.max(firstRow, clip.y / config.cellHeight);
+                lastRow = Math.min(lastRow, (clip.y + clip.height - 1) / config.cellHeight);
+                firstColumn = Math.max(firstColumn, clip.x / config.cellWidth);
+                lastColumn = Math.min(lastColumn, (clip.x + clip.width - 1) / config.cellWidth);
+            }
+            for (int row = firstRow; row <= lastRow; row++)
+                for (int column = firstColumn; column <= lastColumn; column++)
                     g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
         }
     }
@@ -31,6 +31,15 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Finds the card that completes two cards to a legal set of 3 cards.
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the only card that forms a legal set with both cards, or -1 if sets are not made of 3 cards.
+     */
+    int findThirdCard(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +49,28 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the first size cards of the given array (see findSets above).
+     *
+     * @param deck  - an array of card ids.
+     * @param size  - the number of cards to search (from the start of the array).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] deck, int size, int count);
+
+    /**
+     * Same as findSets, but the search is split across a fork-join pool (see Config.parallelFindSetsThreads). The
+     * result is the same as findSets, with or without a count limit: the tasks stop scanning the rows that come after
+     * count sets were found.
+     *
+     * @param deck  - an array of card ids.
+     * @param size  - the number of cards to search (from the start of the array).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSetsParallel(int[] deck, int size, int count);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
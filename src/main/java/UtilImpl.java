@@ -1,29 +1,124 @@
 package bguspl.set;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * The implementation of the UserInterface interface.
+ * The implementation of the Util interface.
  */
 public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The number of cards in a set when sets can be completed from a pair of cards.
+     */
+    private static final int SET_SIZE = 3;
+
+    /**
+     * Marks a card that is not part of the searched deck.
+     */
+    private static final int NOT_IN_DECK = -1;
+
+    /**
+     * The number of bits of each feature lane in a packed card (enough for the values 0..2).
+     */
+    private static final int LANE_BITS = 2;
+
+    /**
+     * The low bit of every lane in a packed card.
+     */
+    private static final long LANE_LOW_BITS = 0x5555555555555555L;
+
+    /**
+     * The maximum number of packed bits for which a packed card to card id lookup table is kept (4M entries).
+     */
+    private static final int PACKED_LOOKUP_MAX_BITS = 22;
+
+    /**
+     * The number of deck positions each parallel set search task scans without splitting further.
+     */
+    private static final int PARALLEL_ROWS_PER_TASK = 8;
+
+    /**
+     * The features of every card, card after card (i.e. feature i of card c is at c * config.featureCount + i).
+     */
+    private final int[] featureTable;
+
+    /**
+     * The value of each feature position in a card id (i.e. featureSize ^ (featureCount - 1 - i)).
+     */
+    private final int[] featureWeights;
+
+    /**
+     * The features of every card packed into LANE_BITS wide lanes of a long, feature i in lane i (null if cards are
+     * not packed).
+     */
+    private final long[] packedCards;
+
+    /**
+     * Mapping between a packed card and its card id (null if cards are not packed or the table would be too big).
+     */
+    private final int[] packedToCard;
+
+    /**
+     * The pool of the parallel set search (the common pool unless config.parallelFindSetsThreads is set).
+     */
+    private final ForkJoinPool findSetsPool;
+
+    /**
+     * The duration of each set search.
+     */
+    private final Histogram findSetsNanos;
+
     public UtilImpl(Config config) {
+        this(config, new Metrics());
+    }
+
+    public UtilImpl(Config config, Metrics metrics) {
         this.config = config;
+        findSetsPool = config.parallelFindSetsThreads > 0 ? new ForkJoinPool(config.parallelFindSetsThreads)
+                : ForkJoinPool.commonPool();
+        this.findSetsNanos = metrics.histogram("util.findSetsNanos");
+        featureTable = new int[config.deckSize * config.featureCount];
+        featureWeights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            featureWeights[i] = weight;
+        for (int card = 0; card < config.deckSize; ++card)
+            decodeFeatures(card, featureTable, card * config.featureCount);
+
+        if (config.packedCards && config.featureSize == SET_SIZE && config.featureCount * LANE_BITS <= Long.SIZE) {
+            packedCards = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedCards[card] |= (long) featureTable[card * config.featureCount + i] << (i * LANE_BITS);
+        } else packedCards = null;
+
+        if (packedCards != null && config.featureCount * LANE_BITS <= PACKED_LOOKUP_MAX_BITS) {
+            packedToCard = new int[1 << (config.featureCount * LANE_BITS)];
+            Arrays.fill(packedToCard, NOT_IN_DECK);
+            for (int card = 0; card < config.deckSize; ++card)
+                packedToCard[(int) packedCards[card]] = card;
+        } else packedToCard = null;
     }
 
-    private void cardToFeatures(int card, int[] features) {
+    private void decodeFeatures(int card, int[] features, int offset) {
         for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
+            features[offset + i] = card % config.featureSize;
             card /= config.featureSize;
         }
     }
 
+    private void cardToFeatures(int card, int[] features) {
+        System.arraycopy(featureTable, card * config.featureCount, features, 0, config.featureCount);
+    }
+
     @Override
     public int[] cardToFeatures(int card) {
         int[] features = new int[config.featureCount];
@@ -34,27 +129,44 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
+        if (cards.length != SET_SIZE || config.featureSize != SET_SIZE) return testSetGeneral(cards);
+        if (packedCards != null)
+            return packedCards[cards[2]] == completePacked(packedCards[cards[0]], packedCards[cards[1]]);
+
+        // with 3 values per feature, a feature is all same or all different iff the sum of its values is 0 mod 3
+        int a = cards[0] * config.featureCount, b = cards[1] * config.featureCount, c = cards[2] * config.featureCount;
+        int misses = 0;
+        for (int i = 0; i < config.featureCount; ++i)
+            misses |= (featureTable[a + i] + featureTable[b + i] + featureTable[c + i]) % SET_SIZE;
+        return misses == 0;
+    }
+
+    /**
+     * Checks if an array of any number of cards forms a legal set, for any feature size.
+     */
+    private boolean testSetGeneral(int[] cards) {
+        int n = config.featureCount;
+        for (int i = 0; i < n; ++i) {
             boolean sameSame = true, butDifferent = true;
 
             // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            for (int j = 1; j < cards.length; ++j)
+                if (featureTable[cards[0] * n + i] != featureTable[cards[j] * n + i]) {
                     sameSame = false;
                     break;
                 }
 
             // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+            for (int j = 1; j < cards.length; ++j)
+                for (int k = j; k < cards.length; ++k)
+                    if (featureTable[cards[j - 1] * n + i] == featureTable[cards[k] * n + i]) {
                         butDifferent = false;
                         break;
                     }
@@ -66,16 +178,193 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = new int[deck.size()];
+        int i = 0;
+        for (int card : deck)
+            cards[i++] = card;
+        return findSets(cards, cards.length, count);
+    }
+
+    @Override
+    public List<int[]> findSets(int[] cards, int n, int count) {
+        long start = System.nanoTime();
+        List<int[]> sets;
+        if (config.featureSize != SET_SIZE) sets = findSetsByCombinations(cards, n, count);
+        else if (config.parallelFindSets && n >= config.parallelFindSetsThreshold) sets = findSetsParallel(cards, n, count);
+        else sets = findSetsByCompletion(cards, n, count);
+        findSetsNanos.record(System.nanoTime() - start);
+        return sets;
+    }
+
+    /**
+     * Finds up to count sets by completing every pair of cards with its third card (sets of 3 cards only).
+     */
+    private List<int[]> findSetsByCompletion(int[] cards, int n, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int[] position = deckPositions(cards, n);
+
+        // every pair of cards has exactly one completing card, so a set is reported from its two lowest positions
+        // only. this keeps the lexicographic order of the combinations walk.
+        for (int i = 0; i < n - 2; ++i)
+            for (int j = i + 1; j < n - 1; ++j) {
+                int k = position[thirdCard(cards[i], cards[j])];
+                if (k > j) {
+                    sets.add(sortedSet(cards[i], cards[j], cards[k]));
+                    if (sets.size() >= count) return sets;
+                }
+            }
+        return sets;
+    }
+
+    @Override
+    public List<int[]> findSetsParallel(int[] cards, int n, int count) {
+        if (config.featureSize != SET_SIZE) return findSetsByCombinations(cards, n, count);
+
+        // like findSets, the first set found is returned even when count is not positive
+        int limit = Math.max(count, 1);
+        int rows = Math.max(n - 2, 0);
+        FindSetsTask task = new FindSetsTask(cards, n, deckPositions(cards, n), 0, rows, limit,
+                new AtomicInteger(rows));
+        List<int[]> sets = findSetsPool.invoke(task);
+        // the sets are in row order, so the first limit of them are the ones findSets returns
+        return sets.size() > limit ? new ArrayList<>(sets.subList(0, limit)) : sets;
+    }
+
+    /**
+     * Maps each card to its position in the searched deck.
+     *
+     * @return - an array of config.deckSize entries, the position of each card in the deck (NOT_IN_DECK if absent).
+     */
+    private int[] deckPositions(int[] cards, int n) {
+        int[] position = new int[config.deckSize];
+        Arrays.fill(position, NOT_IN_DECK);
+        for (int i = 0; i < n; ++i)
+            position[cards[i]] = i;
+        return position;
+    }
+
+    /**
+     * A fork-join task that finds the sets whose lowest deck position is in [fromRow, toRow).
+     * Sub-results are concatenated in row order, so the first count sets of the result are the ones findSets finds.
+     * A task that finds count sets ends the search at its row for all the tasks (endRow): the rows after it cannot
+     * contribute to the first count sets.
+     */
+    private class FindSetsTask extends RecursiveTask<List<int[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cards;
+        private final int size;
+        private final int[] position;
+        private final int fromRow;
+        private final int toRow;
+        private final int count;
+        private final AtomicInteger endRow;
+
+        private FindSetsTask(int[] cards, int size, int[] position, int fromRow, int toRow, int count,
+                             AtomicInteger endRow) {
+            this.cards = cards;
+            this.size = size;
+            this.position = position;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.count = count;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (fromRow >= endRow.get()) return new ArrayList<>();
+            if (toRow - fromRow > PARALLEL_ROWS_PER_TASK) {
+                int middle = (fromRow + toRow) >>> 1;
+                FindSetsTask low = new FindSetsTask(cards, size, position, fromRow, middle, count, endRow);
+                FindSetsTask high = new FindSetsTask(cards, size, position, middle, toRow, count, endRow);
+                low.fork();
+                List<int[]> highSets = high.compute();
+                List<int[]> sets = low.join();
+                sets.addAll(highSets);
+                return sets;
+            }
+
+            List<int[]> sets = new ArrayList<>();
+            for (int i = fromRow; i < toRow && i < endRow.get(); ++i)
+                for (int j = i + 1; j < size - 1; ++j) {
+                    int k = position[thirdCard(cards[i], cards[j])];
+                    if (k > j) {
+                        sets.add(sortedSet(cards[i], cards[j], cards[k]));
+                        if (sets.size() >= count) {
+                            endRow.accumulateAndGet(i + 1, Math::min);
+                            return sets;
+                        }
+                    }
+                }
+            return sets;
+        }
+    }
+
+    @Override
+    public int findThirdCard(int first, int second) {
+        return config.featureSize == SET_SIZE ? thirdCard(first, second) : NOT_IN_DECK;
+    }
+
+    /**
+     * Computes the only card that completes the two given cards to a legal set (3 cards, 3 values per feature).
+     * For each feature the missing value is (-a-b) mod 3.
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the third card.
+     */
+    private int thirdCard(int first, int second) {
+        if (packedToCard != null)
+            return packedToCard[(int) completePacked(packedCards[first], packedCards[second])];
+
+        int a = first * config.featureCount, b = second * config.featureCount;
+        int third = 0;
+        for (int i = 0; i < config.featureCount; ++i)
+            third += (2 * SET_SIZE - featureTable[a + i] - featureTable[b + i]) % SET_SIZE * featureWeights[i];
+        return third;
+    }
+
+    /**
+     * Computes the packed card that completes two packed cards to a legal set, for all the features at once.
+     * In lanes where the two cards agree the third card has the same value. In the other lanes the values are two
+     * different ones out of {0, 1, 2}, and the missing value is 3 ^ a ^ b (i.e. the complement of a ^ b).
+     *
+     * @param first  - the first packed card.
+     * @param second - the second packed card.
+     * @return - the third packed card.
+     */
+    private static long completePacked(long first, long second) {
+        long differ = first ^ second;
+        long differLanes = ((differ | differ >>> 1) & LANE_LOW_BITS) * 3; // all bits of lanes where the cards differ
+        return (first & ~differLanes) | (~differ & differLanes);
+    }
+
+    private static int[] sortedSet(int a, int b, int c) {
+        if (a > b) { int t = a; a = b; b = t; }
+        if (b > c) { int t = b; b = c; c = t; }
+        if (a > b) { int t = a; a = b; b = t; }
+        return new int[]{a, b, c};
+    }
+
+    /**
+     * Finds sets by walking all the r-combinations of the deck (r = config.featureSize). Used when sets are not
+     * made of 3 cards, since the third card completion only works for those.
+     */
+    private List<int[]> findSetsByCombinations(int[] deck, int n, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
         int r = config.featureSize;
         int[] combination = new int[r];
 
         for (int i = 0; i < r; ++i)
             combination[i] = i;
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+        while (combination[r - 1] < n) {
+            int[] cards = new int[r];
+            for (int i = 0; i < r; ++i)
+                cards[i] = deck[combination[i]];
+            Arrays.sort(cards);
             if (testSet(cards)) {
                 sets.add(cards);
                 if (sets.size() >= count) return sets;
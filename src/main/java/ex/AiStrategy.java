@@ -0,0 +1,58 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chooses the key presses of a computer player. The AI loop asks the strategy for one press per step, so the work
+ * done in a step must be small (bounded by the table size or by the number of legal sets on the table).
+ */
+public interface AiStrategy {
+
+    /**
+     * Returned when the strategy does not want to press any key in this step.
+     */
+    int NO_PRESS = -1;
+
+    /**
+     * Chooses the next key press.
+     *
+     * @param tokens - the slots on which the player has tokens.
+     * @return - the slot to press, or NO_PRESS to skip this step.
+     */
+    int nextPress(AtomicBitSet tokens);
+
+    /**
+     * Tells if the strategy decides by the player's tokens. Such a strategy is asked for a press only after the
+     * player handled all its previous presses, so the tokens it reads are up to date.
+     *
+     * @return - true iff the strategy reads the tokens.
+     */
+    default boolean readsTokens() {
+        return false;
+    }
+
+    /**
+     * Creates the strategy configured for the computer players (see Config.computerStrategy).
+     *
+     * @param env    - the environment object.
+     * @param table  - the table the player plays on.
+     * @param random - the source of randomness of the player.
+     * @return - the strategy.
+     */
+    static AiStrategy create(Env env, Table table, SplittableRandom random) {
+        switch (env.config.computerStrategy.trim().toLowerCase()) {
+            case "perfect":
+                return new SolverAiStrategy(table, env.clock, random, 0, 0, 0);
+            case "human":
+                return new SolverAiStrategy(table, env.clock, random, env.config.aiReactionMillis,
+                        env.config.aiReactionDeviationMillis, env.config.aiErrorRate);
+            case "random":
+                return new RandomAiStrategy(table, random);
+            default:
+                env.logger.severe("unknown computer strategy " + env.config.computerStrategy + ", using random.");
+                return new RandomAiStrategy(table, random);
+        }
+    }
+}
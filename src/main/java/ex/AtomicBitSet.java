@@ -0,0 +1,151 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A fixed-size set of small non-negative ints (e.g. slots or player ids) kept as bits in an AtomicLongArray.
+ * Every update is a single atomic operation on one word, so any thread may read and update the set without locks.
+ */
+public class AtomicBitSet {
+
+    /**
+     * The bits of the set, 64 per word.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * The number of bits that may be set.
+     */
+    private final int size;
+
+    /**
+     * The class constructor.
+     *
+     * @param size - the number of bits (the members are 0 to size - 1).
+     */
+    public AtomicBitSet(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray(Math.max(1, (size + Long.SIZE - 1) / Long.SIZE));
+    }
+
+    /**
+     * Adds a member.
+     *
+     * @param index - the member to add.
+     * @return - true iff the member was not in the set before.
+     */
+    public boolean set(int index) {
+        long bit = 1L << index;
+        return (words.getAndAccumulate(index / Long.SIZE, bit, (word, mask) -> word | mask) & bit) == 0;
+    }
+
+    /**
+     * Removes a member.
+     *
+     * @param index - the member to remove.
+     * @return - true iff the member was in the set before.
+     */
+    public boolean clear(int index) {
+        long bit = 1L << index;
+        return (words.getAndAccumulate(index / Long.SIZE, bit, (word, mask) -> word & ~mask) & bit) != 0;
+    }
+
+    /**
+     * Checks if an int is a member.
+     *
+     * @param index - the int to check.
+     * @return - true iff the int is in the set.
+     */
+    public boolean get(int index) {
+        return (words.get(index / Long.SIZE) & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of members.
+     *
+     * @return - the number of bits set.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the set is empty.
+     *
+     * @return - true iff no bit is set.
+     */
+    public boolean isEmpty() {
+        for (int i = 0; i < words.length(); i++) {
+            if (words.get(i) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the members.
+     */
+    public void clearAll() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    /**
+     * Runs an action on every member, in increasing order.
+     *
+     * @param action - the action to run on each member.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < words.length(); i++) {
+            forEachBit(i, words.get(i), action);
+        }
+    }
+
+    /**
+     * Removes all the members and runs an action on each of them (one atomic swap per word, so a member added
+     * meanwhile is either drained or stays in the set).
+     *
+     * @param action - the action to run on each member removed.
+     */
+    public void drain(IntConsumer action) {
+        for (int i = 0; i < words.length(); i++) {
+            forEachBit(i, words.getAndSet(i, 0), action);
+        }
+    }
+
+    private static void forEachBit(int wordIndex, long word, IntConsumer action) {
+        while (word != 0) {
+            action.accept(wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+        }
+    }
+
+    /**
+     * Copies the members to an array.
+     *
+     * @return - the members, in increasing order.
+     */
+    public int[] toArray() {
+        int[] members = new int[cardinality()];
+        int[] index = {0};
+        forEach(member -> {
+            if (index[0] < members.length) members[index[0]++] = member;
+        });
+        return index[0] == members.length ? members : Arrays.copyOf(members, index[0]);
+    }
+
+    /**
+     * Returns the number of bits that may be set.
+     *
+     * @return - the capacity of the set.
+     */
+    public int size() {
+        return size;
+    }
+}
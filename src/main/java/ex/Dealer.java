@@ -1,14 +1,22 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.GameJournal;
+import bguspl.set.Histogram;
 
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class manages the dealer's threads and data
@@ -27,9 +35,19 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final IntDeck deck;
+
+    /**
+     * The dealer's random generator (split off the game's generator).
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Counts the legal sets left among the cards in the deck and on the table.
+     */
+    private final LiveSetCounter liveSets;
 
     /**
      * True iff game should be terminated.
@@ -42,19 +60,75 @@ public class Dealer implements Runnable {
     private long reshuffleTime = Long.MAX_VALUE;
 
     /**
-     * The tokens which the player put on the table.
+     * The events the dealer thread waits for (set claims and termination), in arrival order.
      */
-    private final ConcurrentLinkedQueue<Integer> playerClaims;
+    private final BlockingQueue<DealerEvent> events;
 
     /**
-     * Cards to remove from the table.
+     * Runs the players' freeze countdowns.
      */
-    private final ConcurrentLinkedQueue<Integer> cardToRemove;
+    private final FreezeScheduler freezeScheduler;
+
+    /**
+     * Runs the players' loops and AI loops.
+     */
+    private final PlayerExecutor playerExecutor;
+
+    /**
+     * The events taken from the queue in one wake-up (reused between wake-ups).
+     */
+    private final List<DealerEvent> eventBatch;
+
+    /**
+     * The snapshot requests taken from the queue, answered at the end of the current loop iteration.
+     */
+    private final List<CompletableFuture<GameSnapshot>> snapshotRequests;
+
+    /**
+     * The turn time left when the game was restored from a snapshot (-1 if it was not, or after the turn started).
+     */
+    private long restoredTurnMillis = -1;
+
+    /**
+     * The slots of the sets accepted in the current batch of claims (slotClaimed[slot] == true if taken).
+     */
+    private final boolean[] slotClaimed;
+
+    /**
+     * The time from a set claim (playerIdFinishedSet) until the claiming player is woken up with the verdict,
+     * in nanoseconds.
+     */
+    private final Histogram claimLatency;
+
+    /**
+     * The time the dealer spends handling one wake-up of its loop (from the wake-up to going back to sleep).
+     */
+    private final Histogram loopNanos;
+
+    /**
+     * The time the current loop iteration woke up (System.nanoTime).
+     */
+    private long wokeUpNanos;
+
+    /**
+     * Counters of the claims checked, the valid and invalid sets among them, the claims dropped without a verdict
+     * (incomplete, or sharing a card with a set accepted just before) and the reshuffles due to turn timeouts.
+     */
+    private final LongAdder claims;
+    private final LongAdder validSets;
+    private final LongAdder invalidSets;
+    private final LongAdder droppedClaims;
+    private final LongAdder reshuffles;
 
     /**
-     * Object lock on the dealer.
+     * The CPU time the dealer thread used in its run (-1 if not measured).
      */
-    public final Object lockDealer;
+    private volatile long cpuNanos = -1;
+
+    /**
+     * Cards to remove from the table.
+     */
+    private final ConcurrentLinkedQueue<Integer> cardToRemove;
 
     /**
      * True iff game should be terminated.
@@ -74,14 +148,9 @@ public class Dealer implements Runnable {
     public final int MAX_TOKENS_FOR_PLAYER = 3;
 
     /**
-     * Sleep time for the dealer.
+     * How often the countdown is refreshed while it shows the warning (with hundredths of a second).
      */
-    private final long DEALER_TIMEOUT = 5;
-
-    /**
-     * Zero penalty time
-     */
-    private final int NO_PENALTY = 0;
+    private final long WARNING_REFRESH_MILLIS = 10;
 
     /**
      * SECOND - 1000 millis.
@@ -99,11 +168,24 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        this.playerClaims = new ConcurrentLinkedQueue<>();
+        this.events = new LinkedBlockingQueue<>();
+        this.eventBatch = new ArrayList<>();
+        this.snapshotRequests = new ArrayList<>();
+        this.slotClaimed = new boolean[env.config.tableSize];
+        this.freezeScheduler = new FreezeScheduler(env, players.length);
+        this.playerExecutor = new PlayerExecutor(env);
         this.cardToRemove = new ConcurrentLinkedQueue<>();
-        this.lockDealer = new Object();
+        this.claimLatency = env.metrics.histogram("dealer.claimLatencyNanos");
+        this.loopNanos = env.metrics.histogram("dealer.loopNanos");
+        this.claims = env.metrics.counter("dealer.claims");
+        this.validSets = env.metrics.counter("dealer.validSets");
+        this.invalidSets = env.metrics.counter("dealer.invalidSets");
+        this.droppedClaims = env.metrics.counter("dealer.droppedClaims");
+        this.reshuffles = env.metrics.counter("dealer.reshuffles");
         this.isAnnounced=false;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        this.random = env.random.split();
+        deck = new IntDeck(env.config.deckSize);
+        liveSets = new LiveSetCounter(env);
     }
 
     /**
@@ -112,34 +194,61 @@ public class Dealer implements Runnable {
     @Override
     public void run() {
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
+        long cpuStart = currentThreadCpuNanos();
         initiatePlayersThreads();
         while (!shouldFinish()) {
-            Collections.shuffle(deck);
-            placeCardsOnTable();
-            if(env.config.hints == true){
-                table.hints();
+            if (restoredTurnMillis < 0) {
+                deck.shuffle(random);
+                placeCardsOnTable();
+                if(env.config.hints == true){
+                    table.hints();
+                }
+                updateTimerDisplay(true);
+            } else {
+                // resume the restored turn with the cards as they were
+                reshuffleTime = env.clock.millis() + restoredTurnMillis;
+                restoredTurnMillis = -1;
+                updateTimerDisplay(false);
             }
-            updateTimerDisplay(true);
             timerLoop();
+            // the turn timed out iff the loop ended with a legal set still on the table
+            boolean timedOut = !terminate && table.hasLegalSet();
             removeAllCardsFromTable();
+            if (timedOut) reshuffles.increment();
         }
         terminate();
+        freezeScheduler.shutdown();
+        playerExecutor.shutdown();
+        rejectSnapshotRequests();
         announceWinners();
+        if (cpuStart >= 0) cpuNanos = currentThreadCpuNanos() - cpuStart;
         env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * Returns the CPU time of the current thread.
+     *
+     * @return - the CPU time in nanoseconds, or -1 if the JVM does not measure it.
+     */
+    private static long currentThreadCpuNanos() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did
-     * not time out.
+     * not time out and there is a legal set on the table.
      */
     private void timerLoop() {
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!terminate && env.clock.millis() < reshuffleTime && table.hasLegalSet()) {
             sleepUntilWokenOrTimeout();
             if(!terminate){
                 updateTimerDisplay(false);
                 removeCardsFromTable();
                 placeCardsOnTable();
+                takeSnapshots();
             }
+            loopNanos.record(System.nanoTime() - wokeUpNanos);
         }
     }
 
@@ -148,6 +257,7 @@ public class Dealer implements Runnable {
      */
     public void terminate() {
         terminate = true;
+        events.add(DealerEvent.terminate());
         for(Player player : players){
             player.terminate();
         }
@@ -159,23 +269,20 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !liveSets.hasSets();
     }
 
     /**
      * Checks cards should be removed from the table and removes them.
      */
     private void removeCardsFromTable() {
+        if (cardToRemove.isEmpty()) return;
         table.setReshuffle(true);
         for (int slot : cardToRemove) {
-            for (Player player : players) {
-                if (player.getTokens().contains(slot)) {
-                    table.removeToken(player.id, slot);
-                    player.getTokens().remove(slot);
-                }
-            }
+            table.removeTokens(slot, player -> players[player].getTokens().clear(slot));
         }
         for (int slot : cardToRemove) {
+            liveSets.remove(table.getCard(slot));
             table.removeCard(slot);
             cardToRemove.remove(slot);
         }
@@ -193,38 +300,63 @@ public class Dealer implements Runnable {
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
+        if (deck.isEmpty() || table.countCards() == table.getSlotToCardLength()) return;
         table.setReshuffle(true);
-        List<Integer> slotsToPlace = new ArrayList<>();
+        int[] slotsToPlace = new int[table.getSlotToCardLength()];
+        int count = 0;
         for (int i = 0; i < table.getSlotToCardLength(); i++) {
             if (table.isSlotEmpty(i)) {
-                slotsToPlace.add(i);
+                slotsToPlace[count++] = i;
             }
         }
-        Collections.shuffle(slotsToPlace);
-        for (int i = 0; i < slotsToPlace.size(); i++) {
-            if (deck.size() > 0) {
-                table.placeCard(deck.get(0), slotsToPlace.get(i));
-                deck.remove(0);
+        shuffle(slotsToPlace, count);
+        for (int i = 0; i < count; i++) {
+            if (!deck.isEmpty()) {
+                table.placeCard(deck.draw(), slotsToPlace[i]);
             }
         }
         table.setReshuffle(false);
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some
-     * purpose.
+     * Sleep until an event arrives or until the next time the countdown display needs an update.
+     * Then all the claims that are pending are checked in one pass.
      */
     private void sleepUntilWokenOrTimeout() {
-        synchronized (lockDealer) {
-            try {
-                lockDealer.wait(DEALER_TIMEOUT);
-            } catch (InterruptedException ignore) {
+        try {
+            DealerEvent event = events.poll(env.clock.toRealNanos(nextWakeUpMillis()), TimeUnit.NANOSECONDS);
+            if (event != null) {
+                eventBatch.add(event);
+                events.drainTo(eventBatch);
             }
+        } catch (InterruptedException ignore) {
         }
+        wokeUpNanos = System.nanoTime();
         if(!terminate) {
-            checkSet();
-            updatePlayersPenalty();
+            checkSets();
         }
+        eventBatch.clear();
+    }
+
+    /**
+     * Compute how long the dealer can sleep before one of the displays changes.
+     * A simulation has no displays, so the dealer sleeps until the turn timeout.
+     *
+     * @return - the number of (game) milliseconds until the next countdown display update (at least 1).
+     */
+    private long nextWakeUpMillis() {
+        long remaining = reshuffleTime - env.clock.millis();
+        long wakeUp;
+        if (env.config.simulation) {
+            wakeUp = remaining;
+        } else if (remaining <= env.config.turnTimeoutWarningMillis) {
+            wakeUp = WARNING_REFRESH_MILLIS;
+        } else {
+            // the next whole second of the countdown, or the start of the warning if sooner
+            wakeUp = Math.min(remaining % SECOND == 0 ? SECOND : remaining % SECOND,
+                    remaining - env.config.turnTimeoutWarningMillis);
+        }
+        return Math.max(1, Math.min(wakeUp, remaining));
     }
 
     /**
@@ -233,11 +365,30 @@ public class Dealer implements Runnable {
     private void updateTimerDisplay(boolean reset) {
         if (reset) {
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-        } else if (reshuffleTime - System.currentTimeMillis() - DEALER_TIMEOUT > env.config.turnTimeoutWarningMillis) {
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis() - DEALER_TIMEOUT, false);
+            reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
         } else {
-            env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis() - DEALER_TIMEOUT, 0), true);
+            long remaining = reshuffleTime - env.clock.millis();
+            if (remaining > env.config.turnTimeoutWarningMillis) {
+                // rounded up, so a full second is shown until it has passed
+                env.ui.setCountdown((remaining + SECOND - 1) / SECOND * SECOND, false);
+            } else {
+                env.ui.setCountdown(Math.max(remaining, 0), true);
+            }
+        }
+    }
+
+    /**
+     * Shuffles the first count slots of an array in place (Fisher-Yates) with the dealer's random generator.
+     *
+     * @param slots - the slots to shuffle.
+     * @param count - the number of slots in use.
+     */
+    private void shuffle(int[] slots, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int slot = slots[i];
+            slots[i] = slots[j];
+            slots[j] = slot;
         }
     }
 
@@ -245,22 +396,24 @@ public class Dealer implements Runnable {
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
+        env.journal.append(GameJournal.Event.RESHUFFLE, GameJournal.NO_PLAYER, GameJournal.NO_SLOT, 0);
         table.setReshuffle(true);
         for (Player player : players) {
-            player.getTokens().clear();
+            player.getTokens().clearAll();
         }
-        List<Integer> slotsToRemove = new ArrayList<>();
+        int[] slotsToRemove = new int[table.getSlotToCardLength()];
+        int count = 0;
         for (int i = 0; i < table.getSlotToCardLength(); i++) {
             if (!table.isSlotEmpty(i)) {
-                slotsToRemove.add(i);
+                slotsToRemove[count++] = i;
             }
         }
-        env.ui.removeTokens();
-        Collections.shuffle(slotsToRemove);
-        for (int slot = 0; slot < slotsToRemove.size(); slot++) {
-            int cardToDeck = table.getCard(slotsToRemove.get(slot));
+        table.removeAllTokens();
+        shuffle(slotsToRemove, count);
+        for (int slot = 0; slot < count; slot++) {
+            int cardToDeck = table.getCard(slotsToRemove[slot]);
             deck.add(cardToDeck);
-            table.removeCard(slotsToRemove.get(slot));
+            table.removeCard(slotsToRemove[slot]);
         }
         table.setReshuffle(false);
     }
@@ -297,12 +450,11 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * create and run players threads.
+     * create and run players threads (see PlayerExecutor for the execution modes).
      */
     private void initiatePlayersThreads() {
         for (int i = 0; i < players.length; i++) {
-            Thread playerThread = new Thread(players[i], "player-" + players[i].id);
-            playerThread.start();
+            playerExecutor.startPlayer(players[i]);
         }
     }
 
@@ -311,12 +463,10 @@ public class Dealer implements Runnable {
      *
      * @return - int[] set of cards.
      */
-    private int[] getSetByCards(ConcurrentLinkedQueue<Integer> playersTokens) {
-        int[] setToReturn = new int[MAX_TOKENS_FOR_PLAYER];
-        int index = 0;
-        for (Integer integer : playersTokens) {
-            setToReturn[index] = table.getCard(integer);
-            index++;
+    private int[] getSetByCards(int[] playersTokens) {
+        int[] setToReturn = new int[playersTokens.length];
+        for (int index = 0; index < playersTokens.length; index++) {
+            setToReturn[index] = table.getCard(playersTokens[index]);
         }
         return setToReturn;
     }
@@ -335,62 +485,127 @@ public class Dealer implements Runnable {
      *
      * @param slots - the slots to remove.
      */
-    public void updateCardToRemove(ConcurrentLinkedQueue<Integer> slots) {
+    public void updateCardToRemove(int[] slots) {
         for(int slot: slots){
             cardToRemove.add(slot);
         }
     }
 
     /**
-     * Update players penalty (if theres one).
-     *
+     * Check the claims of the current batch in arrival order. A claim that shares a slot with a set accepted
+     * earlier in the batch is dropped (without a penalty), since those cards are about to leave the table.
+     * The cards of all the accepted sets are removed together afterwards.
      */
-    private void updatePlayersPenalty() {
-        for (Player player : players) {
-            if (player.getPenaltyTime() > NO_PENALTY) {
-                player.setPenaltyTime(Math.max(0,player.getPenaltyTime() - DEALER_TIMEOUT));
-                if (player.getPenaltyTime() % SECOND == NO_PENALTY) {
-                    env.ui.setFreeze(player.id, player.getPenaltyTime());
-                }
+    private void checkSets() {
+        Arrays.fill(slotClaimed, false);
+        for (DealerEvent event : eventBatch) {
+            if (event.type == DealerEvent.Type.CLAIM) {
+                checkSet(event.player);
+                claimLatency.record(System.nanoTime() - event.createdNanos);
+            } else if (event.type == DealerEvent.Type.SNAPSHOT) {
+                snapshotRequests.add(event.snapshot);
             }
         }
     }
 
-
     /**
-     * Check if there are players who claimed set.
-     */
-    private void checkSet() {
-        if (!playerClaims.isEmpty()) {
-            int playerId = playerClaims.remove();
-            ConcurrentLinkedQueue<Integer> playersTokens = players[playerId].getTokens();
-            if (playersTokens.size() != MAX_TOKENS_FOR_PLAYER) {
-                synchronized (players[playerId].pointPenaltyLock) {
-                    players[playerId].setFreeze(false);
-                    players[playerId].pointPenaltyLock.notifyAll();
-                }
+     * Check the set a player claimed.
+     *
+     * @param playerId - the id of the claiming player.
+     */
+    private void checkSet(int playerId) {
+        AtomicBitSet tokens = players[playerId].getTokens();
+        // a press queued before its card left the table may have placed a token on an empty slot
+        tokens.forEach(slot -> {
+            if (table.isSlotEmpty(slot)) tokens.clear(slot);
+        });
+        int[] playersTokens = tokens.toArray();
+        claims.increment();
+        if (playersTokens.length != MAX_TOKENS_FOR_PLAYER || isClaimed(playersTokens)) {
+            droppedClaims.increment();
+            env.journal.append(GameJournal.Event.VERDICT, playerId, GameJournal.NO_SLOT, GameJournal.VERDICT_DROPPED);
+            players[playerId].setFreeze(false);
+        } else {
+            int[] intTokens = getSetByCards(playersTokens);
+            if (!env.util.testSet(intTokens)) {
+                invalidSets.increment();
+                env.journal.append(GameJournal.Event.VERDICT, playerId, GameJournal.NO_SLOT,
+                        GameJournal.VERDICT_INVALID);
+                players[playerId].penalty();
+                freezeScheduler.freeze(players[playerId], env.config.penaltyFreezeMillis);
             } else {
-                int[] intTokens = getSetByCards(playersTokens);
-                if (!env.util.testSet(intTokens)) {
-                    players[playerId].penalty();
-                } else {
-                    updateCardToRemove(playersTokens);
-                    players[playerId].point();
-                }
-                synchronized (players[playerId].pointPenaltyLock){
-                    players[playerId].pointPenaltyLock.notifyAll();
+                validSets.increment();
+                env.journal.append(GameJournal.Event.VERDICT, playerId, GameJournal.NO_SLOT,
+                        GameJournal.VERDICT_VALID);
+                for (int slot : playersTokens) {
+                    slotClaimed[slot] = true;
                 }
+                updateCardToRemove(playersTokens);
+                players[playerId].point();
+                freezeScheduler.freeze(players[playerId], env.config.pointFreezeMillis);
+            }
+        }
+        players[playerId].claimChecked();
+    }
+
+    /**
+     * Checks if any of the given slots belongs to a set accepted earlier in the current batch.
+     *
+     * @param slots - the slots to check.
+     * @return - true iff one of the slots was already claimed.
+     */
+    private boolean isClaimed(int[] slots) {
+        for (int slot : slots) {
+            if (slotClaimed[slot]) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
-     * Add a player id to the players who finished sets.
+     * Add a player id to the players who finished sets. Wakes up the dealer thread.
      *
      * @param player - the player id.
      */
     public void playerIdFinishedSet(int player) {
-        playerClaims.add(player);
+        events.add(DealerEvent.claim(player));
+    }
+
+    /**
+     *
+     * Returns the latencies of the set claims checked so far (from the claim until the verdict is delivered).
+     * @return - the claim latency histogram, in nanoseconds
+     */
+    public Histogram getClaimLatency() {
+        return claimLatency;
+    }
+
+    /**
+     *
+     * Returns the CPU time the dealer thread used in its run.
+     * @return - the CPU time in nanoseconds, or -1 if the game did not end yet or the JVM does not measure it
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     *
+     * Returns the scheduler of the players' freezes.
+     * @return - the freeze scheduler
+     */
+    public FreezeScheduler getFreezeScheduler() {
+        return freezeScheduler;
+    }
+
+    /**
+     *
+     * Returns the executor of the players' loops.
+     * @return - the player executor
+     */
+    public PlayerExecutor getPlayerExecutor() {
+        return playerExecutor;
     }
 
     /**
@@ -405,4 +620,119 @@ public class Dealer implements Runnable {
 
 
 
+
+    /**
+     * Requests a snapshot of the game state. The dealer thread takes it at the end of its current wake-up, after the
+     * pending claims are checked and the table is refilled. Every player's tokens and claim are copied together
+     * under the player's lock, so a press being handled meanwhile is either entirely in the snapshot or not at all.
+     * Key presses are not dropped while the snapshot is taken: a press waits in the player's queue, or for the
+     * player's lock while that player is copied.
+     *
+     * @return - a future completed with the snapshot (or exceptionally if the game ends first).
+     */
+    public CompletableFuture<GameSnapshot> snapshot() {
+        CompletableFuture<GameSnapshot> snapshot = new CompletableFuture<>();
+        events.add(DealerEvent.snapshot(snapshot));
+        if (terminate) {
+            // the dealer thread may have stopped taking events already
+            snapshot.completeExceptionally(new IllegalStateException("the game ended before the snapshot was taken"));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Answers the snapshot requests of the current loop iteration.
+     */
+    private void takeSnapshots() {
+        if (snapshotRequests.isEmpty()) return;
+        GameSnapshot snapshot = captureSnapshot();
+        for (CompletableFuture<GameSnapshot> request : snapshotRequests) {
+            request.complete(snapshot);
+        }
+        snapshotRequests.clear();
+    }
+
+    /**
+     * Copies the game state. Called by the dealer thread, which is the only thread that changes the deck, the cards
+     * on the table and the scores. The players change their own tokens (see Player.copyClaimState), and a player
+     * only affects another one through the dealer, so copying the players one after the other gives a consistent
+     * state without pausing all of them.
+     *
+     * @return - the snapshot.
+     */
+    private GameSnapshot captureSnapshot() {
+        int[] slotToCard = new int[table.getSlotToCardLength()];
+        for (int slot = 0; slot < slotToCard.length; slot++) {
+            Integer card = table.getCard(slot);
+            slotToCard[slot] = card == null ? GameSnapshot.NO_CARD : card;
+        }
+        int[][] tokens = new int[players.length][];
+        int[] scores = new int[players.length];
+        int[] penalties = new int[players.length];
+        long[] freezeMillisLeft = new long[players.length];
+        boolean[] claimPending = new boolean[players.length];
+        for (int i = 0; i < players.length; i++) {
+            players[i].copyClaimState(tokens, claimPending);
+            scores[i] = players[i].score();
+            penalties[i] = players[i].penalties();
+            freezeMillisLeft[i] = freezeScheduler.remainingMillis(i);
+        }
+        long turnMillisLeft = Math.max(0, reshuffleTime - env.clock.millis());
+        int[] deckCards = Arrays.copyOf(deck.cards(), deck.size());
+        return new GameSnapshot(env.seed, env.config.deckSize, turnMillisLeft, deckCards, slotToCard, tokens, scores,
+                penalties, freezeMillisLeft, claimPending);
+    }
+
+    /**
+     * Fails the snapshot requests that will not be answered since the game ended.
+     */
+    private void rejectSnapshotRequests() {
+        for (DealerEvent event : events) {
+            if (event.type == DealerEvent.Type.SNAPSHOT) snapshotRequests.add(event.snapshot);
+        }
+        for (CompletableFuture<GameSnapshot> request : snapshotRequests) {
+            request.completeExceptionally(new IllegalStateException("the game ended before the snapshot was taken"));
+        }
+        snapshotRequests.clear();
+    }
+
+    /**
+     * Restores the state of a game snapshot into this (fresh) game: the deck, the cards on the table, the players'
+     * tokens, scores, penalties and freezes, and the time left in the turn. A player whose claim was pending claims
+     * again. Must be called before the dealer thread starts.
+     *
+     * @param snapshot - the snapshot to restore.
+     * @throws IllegalArgumentException if the snapshot does not fit the game's configuration.
+     */
+    public void restore(GameSnapshot snapshot) {
+        if (snapshot.deckSize != env.config.deckSize || snapshot.tableSize != table.getSlotToCardLength()
+                || snapshot.players() != players.length)
+            throw new IllegalArgumentException("the snapshot does not fit the game configuration: " + snapshot);
+        boolean[] inGame = new boolean[env.config.deckSize];
+        int[] order = snapshot.deck();
+        deck.reset(order);
+        for (int card : order) {
+            inGame[card] = true;
+        }
+        for (int slot = 0; slot < snapshot.tableSize; slot++) {
+            int card = snapshot.card(slot);
+            if (card != GameSnapshot.NO_CARD) {
+                table.placeCard(card, slot);
+                inGame[card] = true;
+            }
+        }
+        for (int card = 0; card < inGame.length; card++) {
+            if (!inGame[card]) liveSets.remove(card);
+        }
+        for (Player player : players) {
+            player.restore(snapshot.score(player.id), snapshot.penalties(player.id), snapshot.tokens(player.id));
+            if (snapshot.claimPending(player.id)) {
+                player.setFreeze(true);
+                playerIdFinishedSet(player.id);
+            } else if (snapshot.freezeMillisLeft(player.id) > 0) {
+                freezeScheduler.freeze(player, snapshot.freezeMillisLeft(player.id));
+            }
+        }
+        restoredTurnMillis = snapshot.turnMillisLeft;
+    }
 }
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An event that wakes up the dealer thread.
+ */
+public class DealerEvent {
+
+    /**
+     * The kinds of events the dealer handles.
+     */
+    public enum Type {
+        /** A player placed its last token and claims a set. */
+        CLAIM,
+        /** A snapshot of the game state was requested. */
+        SNAPSHOT,
+        /** The game should be terminated. */
+        TERMINATE
+    }
+
+    /**
+     * The kind of the event.
+     */
+    public final Type type;
+
+    /**
+     * The id of the player the event is about (NO_PLAYER if none).
+     */
+    public final int player;
+
+    /**
+     * The time the event was created (System.nanoTime).
+     */
+    public final long createdNanos;
+
+    /**
+     * Completed with the snapshot taken (SNAPSHOT events only, null otherwise).
+     */
+    public final CompletableFuture<GameSnapshot> snapshot;
+
+    /**
+     * Marks an event that is not about a specific player.
+     */
+    public static final int NO_PLAYER = -1;
+
+    private DealerEvent(Type type, int player, CompletableFuture<GameSnapshot> snapshot) {
+        this.type = type;
+        this.player = player;
+        this.snapshot = snapshot;
+        this.createdNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates a set claim event.
+     *
+     * @param player - the id of the claiming player.
+     * @return - the event.
+     */
+    public static DealerEvent claim(int player) {
+        return new DealerEvent(Type.CLAIM, player, null);
+    }
+
+    /**
+     * Creates a snapshot request event.
+     *
+     * @param snapshot - completed with the snapshot when it is taken.
+     * @return - the event.
+     */
+    public static DealerEvent snapshot(CompletableFuture<GameSnapshot> snapshot) {
+        return new DealerEvent(Type.SNAPSHOT, NO_PLAYER, snapshot);
+    }
+
+    /**
+     * Creates a terminate event.
+     *
+     * @return - the event.
+     */
+    public static DealerEvent terminate() {
+        return new DealerEvent(Type.TERMINATE, NO_PLAYER, null);
+    }
+}
@@ -0,0 +1,153 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.GameJournal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the freeze deadline of every player and runs the freeze countdowns on a single timer thread.
+ * A frozen player gets one timer task per displayed second and one to unfreeze it, so the cost is proportional to
+ * the number of frozen players only.
+ */
+public class FreezeScheduler {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The timer thread running the countdown ticks.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * The time each player gets unfrozen (0 if not frozen).
+     */
+    private final long[] unfreezeTime;
+
+    /**
+     * The next countdown tick of each player (null if not frozen).
+     */
+    private final ScheduledFuture<?>[] nextTick;
+
+    /**
+     * The countdown of each player, counted up by every freeze. A tick of an older countdown (one that was already
+     * running when a new freeze cancelled it) finds a different number and ends without rescheduling.
+     */
+    private final int[] countdown;
+
+    /**
+     * SECOND - 1000 millis.
+     */
+    private static final long SECOND = 1000;
+
+    /**
+     * The class constructor.
+     *
+     * @param env     - the environment object.
+     * @param players - the number of players.
+     */
+    public FreezeScheduler(Env env, int players) {
+        this.env = env;
+        this.unfreezeTime = new long[players];
+        this.nextTick = new ScheduledFuture<?>[players];
+        this.countdown = new int[players];
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "freeze-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+    }
+
+    /**
+     * Freezes a player for some time. The player's freeze countdown is displayed every second and the player is
+     * unfrozen when it ends.
+     *
+     * @param player - the player to freeze.
+     * @param millis - the freeze time in milliseconds.
+     */
+    public synchronized void freeze(Player player, long millis) {
+        cancel(player.id);
+        if (millis <= 0) {
+            env.journal.append(GameJournal.Event.FREEZE, player.id, GameJournal.NO_SLOT, 0);
+            env.ui.setFreeze(player.id, 0);
+            player.setFreeze(false);
+            return;
+        }
+        player.setFreeze(true);
+        unfreezeTime[player.id] = env.clock.millis() + millis;
+        env.journal.append(GameJournal.Event.FREEZE, player.id, GameJournal.NO_SLOT, (int) millis);
+        env.ui.setFreeze(player.id, millis);
+        schedule(player, millis);
+    }
+
+    /**
+     * Runs on the timer thread when a displayed second of a player's freeze has passed.
+     */
+    private synchronized void tick(Player player, int tickCountdown) {
+        if (tickCountdown != countdown[player.id]) return;
+        long remaining = unfreezeTime[player.id] - env.clock.millis();
+        if (remaining <= 0) {
+            nextTick[player.id] = null;
+            unfreezeTime[player.id] = 0;
+            env.journal.append(GameJournal.Event.FREEZE, player.id, GameJournal.NO_SLOT, 0);
+            env.ui.setFreeze(player.id, 0);
+            player.setFreeze(false);
+        } else {
+            // whole seconds, rounded up (journaled as displayed, so a replay shows the same countdown)
+            long displayed = (remaining + SECOND - 1) / SECOND * SECOND;
+            env.journal.append(GameJournal.Event.FREEZE, player.id, GameJournal.NO_SLOT, (int) displayed);
+            env.ui.setFreeze(player.id, displayed);
+            schedule(player, remaining);
+        }
+    }
+
+    /**
+     * Schedules the next tick of a player at its next whole second of freeze time left (in a simulation, where
+     * nothing is displayed, at the end of the freeze).
+     */
+    private void schedule(Player player, long remaining) {
+        long delay;
+        if (env.config.simulation) {
+            delay = remaining;
+        } else {
+            delay = remaining % SECOND == 0 ? SECOND : remaining % SECOND;
+        }
+        int current = countdown[player.id];
+        nextTick[player.id] = timer.schedule(() -> tick(player, current), env.clock.toRealNanos(delay),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private void cancel(int player) {
+        countdown[player]++;
+        if (nextTick[player] != null) {
+            nextTick[player].cancel(false);
+            nextTick[player] = null;
+        }
+        unfreezeTime[player] = 0;
+    }
+
+    /**
+     * Returns the freeze time a player has left.
+     *
+     * @param player - the player id.
+     * @return - the number of milliseconds until the player is unfrozen (0 if not frozen).
+     */
+    public synchronized long remainingMillis(int player) {
+        return unfreezeTime[player] == 0 ? 0 : Math.max(0, unfreezeTime[player] - env.clock.millis());
+    }
+
+    /**
+     * Stops the timer thread. Pending countdowns are dropped.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
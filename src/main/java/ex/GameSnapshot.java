@@ -0,0 +1,259 @@
+package bguspl.set.ex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The full state of a running game at one moment: the dealer's deck (in order), the card in every slot, every
+ * player's tokens, score, penalties and freeze time left, and the time left in the current turn.
+ * A snapshot is taken by the dealer thread between two wake-ups (see Dealer.snapshot) and can be resumed into fresh
+ * Dealer, Table and Player instances (see Dealer.restore), in this JVM or, after write and read, in another one.
+ * The position of a card (Table.cardToSlot) is not stored, it is the inverse of the card in every slot.
+ *
+ * Binary format (big-endian, as written by DataOutputStream):
+ * int MAGIC, int VERSION, long seed, int deck size (of the game), int table size, int players,
+ * long turn millis left, int deck count, deck count ints (bottom to top), table size ints (card, or NO_CARD),
+ * and for every player: int score, int penalties, long freeze millis left, boolean claim pending, int token count,
+ * token count ints.
+ */
+public class GameSnapshot {
+
+    /**
+     * MAGIC-NUMBERS
+     *
+     * The first int of a snapshot ("SETS"), the format version, and the value of an empty slot.
+     */
+    public static final int MAGIC = 0x53455453;
+    public static final int VERSION = 1;
+    public static final int NO_CARD = -1;
+
+    /**
+     * The seed of the game the snapshot was taken from.
+     */
+    public final long seed;
+
+    /**
+     * The number of cards in the game and of slots on the table.
+     */
+    public final int deckSize;
+    public final int tableSize;
+
+    /**
+     * The game time left until the current turn times out, in milliseconds.
+     */
+    public final long turnMillisLeft;
+
+    /**
+     * The cards in the dealer's deck, from the bottom to the top (the next card drawn is the last).
+     */
+    private final int[] deck;
+
+    /**
+     * The card in every slot (NO_CARD if the slot is empty).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * Per player: the slots of its tokens, its score, its penalties, its freeze time left in milliseconds and whether
+     * it claimed a set that was not checked yet.
+     */
+    private final int[][] tokens;
+    private final int[] scores;
+    private final int[] penalties;
+    private final long[] freezeMillisLeft;
+    private final boolean[] claimPending;
+
+    /**
+     * The class constructor. The arrays are owned by the snapshot from now on.
+     *
+     * @param seed             - the seed of the game.
+     * @param deckSize         - the number of cards in the game.
+     * @param turnMillisLeft   - the time left in the current turn.
+     * @param deck             - the cards in the deck, bottom to top.
+     * @param slotToCard       - the card in every slot (NO_CARD if empty).
+     * @param tokens           - the token slots of every player.
+     * @param scores           - the score of every player.
+     * @param penalties        - the penalties of every player.
+     * @param freezeMillisLeft - the freeze time left of every player.
+     * @param claimPending     - whether every player waits for the verdict on a claim.
+     */
+    public GameSnapshot(long seed, int deckSize, long turnMillisLeft, int[] deck, int[] slotToCard, int[][] tokens,
+                        int[] scores, int[] penalties, long[] freezeMillisLeft, boolean[] claimPending) {
+        this.seed = seed;
+        this.deckSize = deckSize;
+        this.tableSize = slotToCard.length;
+        this.turnMillisLeft = turnMillisLeft;
+        this.deck = deck;
+        this.slotToCard = slotToCard;
+        this.tokens = tokens;
+        this.scores = scores;
+        this.penalties = penalties;
+        this.freezeMillisLeft = freezeMillisLeft;
+        this.claimPending = claimPending;
+    }
+
+    /**
+     * Returns the number of players.
+     *
+     * @return - the number of players in the game.
+     */
+    public int players() {
+        return scores.length;
+    }
+
+    /**
+     * Returns the cards in the deck.
+     *
+     * @return - a copy of the deck, from the bottom to the top.
+     */
+    public int[] deck() {
+        return deck.clone();
+    }
+
+    /**
+     * Returns the card in a slot.
+     *
+     * @param slot - the slot.
+     * @return - the card id, or NO_CARD if the slot was empty.
+     */
+    public int card(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * Returns the slots of a player's tokens.
+     *
+     * @param player - the player id.
+     * @return - a copy of the token slots.
+     */
+    public int[] tokens(int player) {
+        return tokens[player].clone();
+    }
+
+    /**
+     * Returns a player's score.
+     *
+     * @param player - the player id.
+     * @return - the score.
+     */
+    public int score(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Returns the number of penalties a player got.
+     *
+     * @param player - the player id.
+     * @return - the penalties.
+     */
+    public int penalties(int player) {
+        return penalties[player];
+    }
+
+    /**
+     * Returns the freeze time a player had left.
+     *
+     * @param player - the player id.
+     * @return - the freeze time left in milliseconds (0 if not frozen).
+     */
+    public long freezeMillisLeft(int player) {
+        return freezeMillisLeft[player];
+    }
+
+    /**
+     * Checks if a player waited for the verdict on a claim.
+     *
+     * @param player - the player id.
+     * @return - true iff the player's claim was not checked yet.
+     */
+    public boolean claimPending(int player) {
+        return claimPending[player];
+    }
+
+    /**
+     * Writes the snapshot in the binary format.
+     *
+     * @param out - the stream to write to (not closed).
+     * @throws IOException if writing fails.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(seed);
+        data.writeInt(deckSize);
+        data.writeInt(tableSize);
+        data.writeInt(players());
+        data.writeLong(turnMillisLeft);
+        writeInts(data, deck);
+        for (int card : slotToCard) data.writeInt(card);
+        for (int player = 0; player < players(); player++) {
+            data.writeInt(scores[player]);
+            data.writeInt(penalties[player]);
+            data.writeLong(freezeMillisLeft[player]);
+            data.writeBoolean(claimPending[player]);
+            writeInts(data, tokens[player]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot in the binary format.
+     *
+     * @param in - the stream to read from (not closed).
+     * @return - the snapshot read.
+     * @throws IOException if reading fails or the data is not a snapshot of this version.
+     */
+    public static GameSnapshot read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a game snapshot");
+        int version = data.readInt();
+        if (version != VERSION) throw new IOException("unsupported game snapshot version " + version);
+        long seed = data.readLong();
+        int deckSize = data.readInt();
+        int tableSize = data.readInt();
+        int players = data.readInt();
+        long turnMillisLeft = data.readLong();
+        if (deckSize < 0 || tableSize < 0 || players < 0) throw new IOException("corrupt game snapshot");
+        int[] deck = readInts(data, deckSize);
+        int[] slotToCard = new int[tableSize];
+        for (int slot = 0; slot < tableSize; slot++) slotToCard[slot] = data.readInt();
+        int[][] tokens = new int[players][];
+        int[] scores = new int[players];
+        int[] penalties = new int[players];
+        long[] freezeMillisLeft = new long[players];
+        boolean[] claimPending = new boolean[players];
+        for (int player = 0; player < players; player++) {
+            scores[player] = data.readInt();
+            penalties[player] = data.readInt();
+            freezeMillisLeft[player] = data.readLong();
+            claimPending[player] = data.readBoolean();
+            tokens[player] = readInts(data, tableSize);
+        }
+        return new GameSnapshot(seed, deckSize, turnMillisLeft, deck, slotToCard, tokens, scores, penalties,
+                freezeMillisLeft, claimPending);
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        data.writeInt(values.length);
+        for (int value : values) data.writeInt(value);
+    }
+
+    private static int[] readInts(DataInputStream data, int max) throws IOException {
+        int count = data.readInt();
+        if (count < 0 || count > max) throw new IOException("corrupt game snapshot (count " + count + ")");
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = data.readInt();
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "GameSnapshot{deck=" + deck.length + " cards, table=" + Arrays.toString(slotToCard)
+                + ", scores=" + Arrays.toString(scores) + ", turnMillisLeft=" + turnMillisLeft + "}";
+    }
+}
@@ -0,0 +1,111 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the dealer's deck of card ids as primitive ints.
+ * Cards are drawn from and returned to the tail of the deck, both in O(1).
+ *
+ * @inv 0 <= size <= cards.length
+ */
+public class IntDeck {
+
+    /**
+     * The card ids in the deck (only the first size entries are used, the top of the deck is at size - 1).
+     */
+    private final int[] cards;
+
+    /**
+     * The number of cards currently in the deck.
+     */
+    private int size;
+
+    /**
+     * The class constructor. Creates a full deck with the card ids 0 to deckSize - 1.
+     *
+     * @param deckSize - the number of cards in the game.
+     */
+    public IntDeck(int deckSize) {
+        this.cards = new int[deckSize];
+        Arrays.setAll(cards, card -> card);
+        this.size = deckSize;
+    }
+
+    /**
+     * Shuffles the deck in place (Fisher-Yates).
+     *
+     * @param random - the source of randomness.
+     */
+    public void shuffle(SplittableRandom random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int card = cards[i];
+            cards[i] = cards[j];
+            cards[j] = card;
+        }
+    }
+
+    /**
+     * Removes the card at the top of the deck.
+     *
+     * @return - the card id drawn.
+     * @throws NoSuchElementException if the deck is empty.
+     */
+    public int draw() {
+        if (size == 0) throw new NoSuchElementException("the deck is empty");
+        return cards[--size];
+    }
+
+    /**
+     * Returns a card to the top of the deck.
+     *
+     * @param card - the card id to return.
+     * @throws IllegalStateException if the deck is already full.
+     */
+    public void add(int card) {
+        if (size == cards.length) throw new IllegalStateException("the deck is full");
+        cards[size++] = card;
+    }
+
+    /**
+     * Returns the number of cards in the deck.
+     *
+     * @return - the number of cards left in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the deck is empty.
+     *
+     * @return - true iff there are no cards in the deck.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Replaces the cards in the deck (e.g. with the deck of a game snapshot).
+     *
+     * @param order - the card ids, from the bottom to the top of the deck.
+     * @throws IllegalArgumentException if there are more cards than the deck holds.
+     */
+    public void reset(int[] order) {
+        if (order.length > cards.length) throw new IllegalArgumentException("too many cards: " + order.length);
+        System.arraycopy(order, 0, cards, 0, order.length);
+        size = order.length;
+    }
+
+    /**
+     * Returns the backing array of the deck, for reading without copying or boxing.
+     * Only the first size() entries are cards of the deck.
+     *
+     * @return - the card ids array.
+     */
+    public int[] cards() {
+        return cards;
+    }
+}
@@ -0,0 +1,254 @@
+package bguspl.set.ex;
+
+import bguspl.set.Histogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue of key presses (slots) of a single player.
+ * It has exactly one producer thread (the keyboard input thread or the AI loop) and one consumer (the player
+ * thread, or in pooled mode the player's key press task). Waiting threads are parked and unparked instead of using monitors.
+ *
+ * @inv 0 <= tail - head <= capacity
+ */
+public class KeyPressQueue {
+
+    /**
+     * The pressed slots, in a ring.
+     */
+    private final int[] slots;
+
+    /**
+     * The time each press was added (System.nanoTime), for measuring the input latency.
+     */
+    private final long[] pressTimes;
+
+    /**
+     * The index of the next press to take (written by the consumer only).
+     */
+    private final AtomicLong head;
+
+    /**
+     * The index of the next press to add (written by the producer only).
+     */
+    private final AtomicLong tail;
+
+    /**
+     * The consumer thread while it is parked waiting for a press (null otherwise).
+     */
+    private volatile Thread waitingConsumer;
+
+    /**
+     * The producer thread while it is parked waiting for space (null otherwise).
+     */
+    private volatile Thread waitingProducer;
+
+    /**
+     * True iff the queue was closed (no more presses will be taken).
+     */
+    private volatile boolean closed;
+
+    /**
+     * The number of presses taken, the number dropped because the queue was full, and the times the taken presses
+     * waited in the queue. They may be shared with other queues (e.g. the game's metrics).
+     */
+    private final LongAdder takenPresses;
+    private final LongAdder lostPresses;
+    private final Histogram latencyNanos;
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the maximum number of pending presses.
+     */
+    public KeyPressQueue(int capacity) {
+        this(capacity, new LongAdder(), new LongAdder(), new Histogram());
+    }
+
+    /**
+     * The class constructor, counting into the given counters (e.g. counters of the game's metrics, shared by the
+     * queues of all the players).
+     *
+     * @param capacity     - the maximum number of pending presses.
+     * @param takenPresses - counts the presses taken.
+     * @param lostPresses  - counts the presses dropped because the queue was full.
+     * @param latencyNanos - records the time each taken press waited in the queue.
+     */
+    public KeyPressQueue(int capacity, LongAdder takenPresses, LongAdder lostPresses, Histogram latencyNanos) {
+        this.slots = new int[capacity];
+        this.pressTimes = new long[capacity];
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+        this.takenPresses = takenPresses;
+        this.lostPresses = lostPresses;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * Adds a press if there is room, otherwise the press is dropped (and counted as lost).
+     * Must be called by the producer thread only.
+     *
+     * @param slot - the slot pressed.
+     * @return - true iff the press was added.
+     */
+    public boolean offer(int slot) {
+        if (tryAdd(slot)) {
+            return true;
+        }
+        lostPresses.increment();
+        return false;
+    }
+
+    /**
+     * Adds a press, waiting while the queue is full. Must be called by the producer thread only.
+     *
+     * @param slot - the slot pressed.
+     * @return - true iff the press was added, false if the queue was closed or the thread interrupted meanwhile.
+     */
+    public boolean put(int slot) {
+        while (!tryAdd(slot)) {
+            waitingProducer = Thread.currentThread();
+            // check again after registering, the consumer may have taken a press in between
+            if (isFull() && !closed) {
+                LockSupport.park(this);
+            }
+            waitingProducer = null;
+            if (closed || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean tryAdd(int slot) {
+        long index = tail.get();
+        if (index - head.get() == slots.length) {
+            return false;
+        }
+        int position = (int) (index % slots.length);
+        slots[position] = slot;
+        pressTimes[position] = System.nanoTime();
+        // a volatile store (not lazySet): it must not be reordered after the read of waitingConsumer below, or the
+        // consumer may park after we saw no waiter and the press would be stranded
+        tail.set(index + 1);
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the oldest press, waiting while the queue is empty. Must be called by the consumer thread only.
+     *
+     * @return - the slot pressed.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public int take() throws InterruptedException {
+        long index = head.get();
+        while (tail.get() == index) {
+            waitingConsumer = Thread.currentThread();
+            // check again after registering, the producer may have added a press in between
+            if (tail.get() == index) {
+                LockSupport.park(this);
+            }
+            waitingConsumer = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return remove(index);
+    }
+
+    /**
+     * Takes the oldest press if there is one, without waiting. Must be called by the consumer only.
+     *
+     * @return - the slot pressed, or -1 if the queue is empty.
+     */
+    public int poll() {
+        long index = head.get();
+        return tail.get() == index ? -1 : remove(index);
+    }
+
+    private int remove(long index) {
+        int position = (int) (index % slots.length);
+        int slot = slots[position];
+        long latency = System.nanoTime() - pressTimes[position];
+        head.set(index + 1); // frees the entry for the producer (volatile store, see tryAdd)
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+
+        takenPresses.increment();
+        latencyNanos.record(latency);
+        return slot;
+    }
+
+    /**
+     * Closes the queue and wakes up a producer waiting for space. Called when the consumer stops.
+     */
+    public void close() {
+        closed = true;
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Checks if the queue is full.
+     *
+     * @return - true iff no more presses can be added right now.
+     */
+    public boolean isFull() {
+        return tail.get() - head.get() == slots.length;
+    }
+
+    /**
+     * Returns the number of pending presses.
+     *
+     * @return - the number of presses added and not taken yet.
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Returns the number of presses dropped because the queue was full (by all the queues sharing the counter).
+     *
+     * @return - the number of lost presses.
+     */
+    public long lostPresses() {
+        return lostPresses.sum();
+    }
+
+    /**
+     * Returns the number of presses taken by the consumer (of all the queues sharing the counter).
+     *
+     * @return - the number of presses taken.
+     */
+    public long takenPresses() {
+        return takenPresses.sum();
+    }
+
+    /**
+     * Returns the average time a press waited in the queue (in all the queues sharing the histogram).
+     *
+     * @return - the average input latency in nanoseconds (0 if no press was taken).
+     */
+    public long averageLatencyNanos() {
+        return (long) latencyNanos.mean();
+    }
+
+    /**
+     * Returns the longest time a press waited in the queue (in all the queues sharing the histogram).
+     *
+     * @return - the maximum input latency in nanoseconds.
+     */
+    public long maxLatencyNanos() {
+        return latencyNanos.max();
+    }
+}
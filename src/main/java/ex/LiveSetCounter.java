@@ -0,0 +1,126 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * This class counts the legal sets that can still be formed from the cards left in the game (in the deck or on the
+ * table), and updates the count as cards leave the game.
+ *
+ * @inv liveCards[cardPosition[c]] == c iff card c is still in the game
+ */
+public class LiveSetCounter {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The cards still in the game, in no particular order (only the first liveCount entries are used).
+     */
+    private final int[] liveCards;
+
+    /**
+     * Mapping between a card and its index in liveCards (NOT_LIVE if it left the game).
+     */
+    private final int[] cardPosition;
+
+    /**
+     * The number of cards still in the game.
+     */
+    private int liveCount;
+
+    /**
+     * The number of legal sets among the cards still in the game.
+     */
+    private long sets;
+
+    /**
+     * True iff the count is updated one card at a time (possible only when a pair of cards has a single completing
+     * card, see Util.findThirdCard). Otherwise the cards left are searched for a set when asked.
+     */
+    private final boolean incremental;
+
+    /**
+     * Marks a card that left the game.
+     */
+    private static final int NOT_LIVE = -1;
+
+    /**
+     * The class constructor. All the cards of the deck start in the game.
+     *
+     * @param env - the environment object.
+     */
+    public LiveSetCounter(Env env) {
+        this.env = env;
+        this.liveCards = new int[env.config.deckSize];
+        this.cardPosition = new int[env.config.deckSize];
+        for (int card = 0; card < liveCards.length; card++) {
+            liveCards[card] = card;
+            cardPosition[card] = card;
+        }
+        this.liveCount = liveCards.length;
+        this.incremental = liveCount < 2 || env.util.findThirdCard(0, 1) >= 0;
+        if (incremental) sets = countSets();
+    }
+
+    /**
+     * Counts all the legal sets among the cards in the game (each one once, from its two lowest positions).
+     */
+    private long countSets() {
+        long count = 0;
+        for (int i = 0; i < liveCount; i++)
+            for (int j = i + 1; j < liveCount; j++) {
+                int third = env.util.findThirdCard(liveCards[i], liveCards[j]);
+                if (isLive(third) && cardPosition[third] > j) count++;
+            }
+        return count;
+    }
+
+    private boolean isLive(int card) {
+        return card >= 0 && card < cardPosition.length && cardPosition[card] != NOT_LIVE;
+    }
+
+    /**
+     * Called when a card leaves the game (e.g. it was part of a set a player found).
+     * Only the sets that contain this card are subtracted, O(cards left) per card.
+     *
+     * @param card - the card that left the game.
+     *
+     * @post - the card is no longer counted in any set.
+     */
+    public void remove(int card) {
+        if (!isLive(card)) return;
+        if (incremental) {
+            for (int i = 0; i < liveCount; i++) {
+                int second = liveCards[i];
+                if (second == card) continue;
+                int third = env.util.findThirdCard(card, second);
+                if (third != card && isLive(third) && second < third) sets--;
+            }
+        }
+        int position = cardPosition[card];
+        int last = liveCards[--liveCount];
+        liveCards[position] = last;
+        cardPosition[last] = position;
+        cardPosition[card] = NOT_LIVE;
+    }
+
+    /**
+     * Checks if a legal set can still be formed from the cards left in the game.
+     *
+     * @return - true iff there is at least one legal set among the cards in the deck and on the table.
+     */
+    public boolean hasSets() {
+        return incremental ? sets > 0 : !env.util.findSets(liveCards, liveCount, 1).isEmpty();
+    }
+
+    /**
+     * Returns the number of legal sets that can still be formed.
+     *
+     * @return - the number of legal sets among the cards left in the game (only when counted incrementally).
+     */
+    public long countLiveSets() {
+        return sets;
+    }
+}
@@ -1,7 +1,11 @@
 package bguspl.set.ex;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import bguspl.set.Env;
+import bguspl.set.GameJournal;
 
 /**
  * This class manages the players' threads and data
@@ -29,13 +33,23 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
-     * The thread of the AI (computer) player (an additional thread used to generate
-     * key presses).
+     * Counted down when the player's main loop ends.
      */
-    private Thread aiThread;
+    private final CountDownLatch finished;
+
+    /**
+     * The loop of the AI (computer) player (an additional loop used to generate
+     * key presses), completes when the loop stopped.
+     */
+    private Future<?> aiLoop;
+
+    /**
+     * Signals the task handling the player's key presses on the shared pool (pooled mode only, otherwise null).
+     */
+    private volatile Runnable pressTask;
 
     /**
      * True iff the player is human (not a computer player).
@@ -53,19 +67,19 @@ public class Player implements Runnable {
     private int score;
 
     /**
-     * Game's dealer.
+     * The number of penalties the player got.
      */
-    private final Dealer dealer;
+    private int penalties;
 
     /**
-     * The tokens which the player put on the table.
+     * Game's dealer.
      */
-    private final ConcurrentLinkedQueue<Integer> tokens;
+    private final Dealer dealer;
 
     /**
-     * Penalty time of player.
+     * The slots on which the player put its tokens.
      */
-    private volatile long penaltyTime;
+    private final AtomicBitSet tokens;
 
     /**
      *  True iff player got a penalty.
@@ -82,6 +96,11 @@ public class Player implements Runnable {
      */
     private volatile boolean freeze;
 
+    /**
+     * True iff the player claimed a set and the dealer did not check it yet.
+     */
+    private boolean awaitingVerdict;
+
     /**
      * Last key press.
      */
@@ -89,9 +108,17 @@ public class Player implements Runnable {
 
 
     /**
-     * Key Press Object.
+     * The key presses waiting to be handled by the player thread.
+     */
+    private final KeyPressQueue keyPresses;
+
+    /**
+     * The number of key presses put in the queue (written by the thread pressing the keys only) and the number the
+     * player thread finished handling, i.e. applied to the tokens or discarded. While they differ the tokens are about
+     * to change, even when the queue is already empty.
      */
-    private Object keyPressLock;
+    private volatile long pressesSent;
+    private volatile long pressesHandled;
 
     /**
      * point/penalty  Object.
@@ -105,10 +132,20 @@ public class Player implements Runnable {
      * MAGIC-NUMBERS
      *
      *
-     * AI key press delay.
+     * AI key press delay (in game milliseconds).
      */
     private final long PRESS_DELAY = 1;
 
+    /**
+     * The number of key presses that can wait for the player thread.
+     */
+    private final int KEY_PRESS_QUEUE_CAPACITY = 3;
+
+    /**
+     * The player's random generator (split off the game's generator), used by its AI only.
+     */
+    private final SplittableRandom random;
+
     /**
      * The class constructor.
      *
@@ -125,12 +162,14 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         this.dealer = dealer;
-        this.tokens = new ConcurrentLinkedQueue<>();
-        this.penaltyTime = 0;
+        this.tokens = new AtomicBitSet(table.getSlotToCardLength());
         this.freeze = false;
         this.pointPenaltyLock = new Object();
-        this.keyPressLock = new Object();
+        this.keyPresses = new KeyPressQueue(KEY_PRESS_QUEUE_CAPACITY, env.metrics.counter("player.keyPresses"),
+                env.metrics.counter("player.lostKeyPresses"), env.metrics.histogram("player.keyPressLatencyNanos"));
         this.keyPress = 0;
+        this.finished = new CountDownLatch(1);
+        this.random = env.random.split();
     }
 
     /**
@@ -140,30 +179,91 @@ public class Player implements Runnable {
     @Override
     public void run() {
         playerThread = Thread.currentThread();
+        try {
+            playerLoop();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    /**
+     * The main loop of the player: handles key presses until the game is terminated.
+     */
+    private void playerLoop() {
         env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
         if (!human)
             createArtificialIntelligence();
         while (!terminate) {
-            synchronized (keyPressLock) {
-                try {
-                    keyPressLock.wait();
-                } catch (InterruptedException ignored) {
-                }
+            int slot;
+            try {
+                slot = keyPresses.take();
+            } catch (InterruptedException ignored) {
+                continue;
             }
-            if (tokens.contains(keyPress)) {
-                tokens.remove(keyPress);
-                table.removeToken(id, keyPress);
-            } else if (tokens.size() < dealer.MAX_TOKENS_FOR_PLAYER) {
-                tokens.add(keyPress);
-                table.placeToken(id,keyPress);
-                if (tokens.size() == dealer.MAX_TOKENS_FOR_PLAYER) {
+            handlePress(slot);
+        }
+        keyPresses.close();
+        awaitArtificialIntelligence();
+        env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
+    }
+
+    /**
+     * Starts the player in pooled mode, where it has no thread of its own: every key press signals pressTask, which
+     * runs handlePresses on the shared pool.
+     *
+     * @param pressTask - the signal of the task handling the player's key presses.
+     */
+    void startOnPool(Runnable pressTask) {
+        this.pressTask = pressTask;
+        env.logger.info("Player " + id + " starting on the shared pool.");
+        if (!human)
+            createArtificialIntelligence();
+    }
+
+    /**
+     * The task of the pooled mode: handles the pending key presses without waiting for more, or ends the player once
+     * the game is terminated.
+     */
+    void handlePresses() {
+        for (int slot = keyPresses.poll(); slot != -1 && !terminate; slot = keyPresses.poll()) {
+            handlePress(slot);
+        }
+        if (terminate) {
+            keyPresses.close();
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Places or removes a token on the slot of a key press, and claims a set when it was the last token. The player
+     * waits for the dealer's verdict on the claim.
+     *
+     * @param slot - the slot pressed.
+     */
+    private void handlePress(int slot) {
+        // the press may have waited in the queue while the table changed
+        if (table.getReshuffle() || table.isSlotEmpty(slot)) {
+            pressesHandled++;
+            return;
+        }
+        // the tokens change under the lock, so a snapshot never sees the last token without its claim
+        synchronized (pointPenaltyLock) {
+            if (tokens.get(slot)) {
+                tokens.clear(slot);
+                table.removeToken(id, slot);
+            } else if (tokens.cardinality() < dealer.MAX_TOKENS_FOR_PLAYER) {
+                tokens.set(slot);
+                table.placeToken(id, slot);
+                if (tokens.cardinality() == dealer.MAX_TOKENS_FOR_PLAYER) {
                     freeze = true;
+                    // claim while holding the lock, so the dealer's answer cannot arrive before we wait for it
+                    awaitingVerdict = true;
+                    env.journal.append(GameJournal.Event.CLAIM, id, GameJournal.NO_SLOT, 0);
                     dealer.playerIdFinishedSet(id);
-                    synchronized (pointPenaltyLock) {
-                        try {
+                    try {
+                        while (awaitingVerdict && !terminate)
                             pointPenaltyLock.wait();
-                        } catch (InterruptedException ignored) {
-                        }
+                    } catch (InterruptedException ignored) {
                     }
                 }
             }
@@ -174,37 +274,36 @@ public class Player implements Runnable {
                 penaltyUpdate();
             }
         }
+        pressesHandled++;
+    }
+
+    private void awaitArtificialIntelligence() {
         if (!human) {
             try {
-                aiThread.join();
-            } catch (InterruptedException ignored) {
+                aiLoop.get();
+            } catch (InterruptedException | ExecutionException ignored) {
             }
         }
-        env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of
      * this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it
-     * is not full.
+     * key presses, chosen by the configured AI strategy. If the queue of key presses is full, the thread waits until it
+     * is not full (on shared pools, where it must not block, the press is skipped instead).
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
-            env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                keyPressedGeneral((int) (Math.random() * table.getSlotToCardLength()));
-                try {
-                    synchronized (this) {
-                        wait(PRESS_DELAY);
-                    }
-                } catch (InterruptedException ignored) {
-                }
-            }
-            env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
-        aiThread.start();
+        boolean mayBlock = dealer.getPlayerExecutor().mode() != PlayerExecutor.Mode.POOLED;
+        AiStrategy strategy = AiStrategy.create(env, table, random);
+        aiLoop = dealer.getPlayerExecutor().startAi("computer-" + id, () -> !terminate, () -> {
+            // a strategy reading the tokens waits until its last press was applied to them
+            if (freeze || (strategy.readsTokens() && pressesHandled != pressesSent)
+                    || (!mayBlock && keyPresses.isFull()))
+                return;
+            int slot = strategy.nextPress(tokens);
+            if (slot != AiStrategy.NO_PRESS)
+                keyPressedGeneral(slot, mayBlock);
+        }, env.clock.toRealSleepNanos(PRESS_DELAY));
     }
 
     /**
@@ -212,9 +311,28 @@ public class Player implements Runnable {
      */
     public void terminate() {
         terminate = true;
-        playerThread.interrupt();
+        Runnable task = pressTask;
+        if (task != null) {
+            // no thread to interrupt: wake up a press task waiting for a verdict, and let the next run end the player
+            synchronized (pointPenaltyLock) {
+                pointPenaltyLock.notifyAll();
+            }
+            task.run();
+            try {
+                finished.await();
+            } catch (InterruptedException ignored) {
+            }
+            awaitArtificialIntelligence();
+            env.logger.info("Player " + id + " terminated.");
+            return;
+        }
+        Thread thread = playerThread;
+        if (thread == null) {
+            return; // not started yet, the loop will see terminate when it starts
+        }
+        thread.interrupt();
         try {
-            playerThread.join();
+            finished.await();
         } catch (InterruptedException ignored) {
         }
     }
@@ -226,7 +344,7 @@ public class Player implements Runnable {
      */
     public void keyPressed(int slot) {
         if(this.human){
-            keyPressedGeneral(slot);
+            keyPressedGeneral(slot, false);
         }
     }
 
@@ -239,6 +357,7 @@ public class Player implements Runnable {
     public void point() {
         //int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         score = score + 1;
+        env.journal.append(GameJournal.Event.SCORE, id, GameJournal.NO_SLOT, score);
         env.ui.setScore(id, score);
         point = true;
     }
@@ -248,56 +367,86 @@ public class Player implements Runnable {
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
+        penalties = penalties + 1;
         penalty = true;
     }
 
+    /**
+     * Restores the player's score, penalties and tokens from a game snapshot. Called before the game starts.
+     *
+     * @param score     - the score to restore.
+     * @param penalties - the penalties to restore.
+     * @param slots     - the slots of the player's tokens.
+     */
+    public void restore(int score, int penalties, int[] slots) {
+        this.score = score;
+        this.penalties = penalties;
+        env.ui.setScore(id, score);
+        for (int slot : slots) {
+            tokens.set(slot);
+            table.placeToken(id, slot);
+        }
+    }
+
+    /**
+     * Copies the player's tokens and whether it waits for the dealer's verdict, together: the player thread changes
+     * both under the same lock, so the copy never has a complete set of tokens without its claim.
+     *
+     * @param tokens       - set at the player id to the slots of the player's tokens.
+     * @param claimPending - set at the player id to true iff a claim of the player was not checked yet.
+     */
+    void copyClaimState(int[][] tokens, boolean[] claimPending) {
+        synchronized (pointPenaltyLock) {
+            tokens[id] = this.tokens.toArray();
+            claimPending[id] = awaitingVerdict;
+        }
+    }
+
+    /**
+     * Called by the dealer after it checked the set this player claimed. Wakes up the player thread.
+     */
+    public void claimChecked() {
+        synchronized (pointPenaltyLock) {
+            awaitingVerdict = false;
+            pointPenaltyLock.notifyAll();
+        }
+    }
+
     /**
      * This method is called when a key is pressed or AI called it.
      *
      * @param slot - the slot corresponding to the key pressed.
+     * @param wait - true to wait while the key presses queue is full, false to drop the press.
      */
-    private void keyPressedGeneral(int slot){
+    private void keyPressedGeneral(int slot, boolean wait){
         if (freeze || table.getReshuffle() || table.isSlotEmpty(slot)) {
             return;
         }
-        synchronized (keyPressLock) {
+        if (wait ? keyPresses.put(slot) : keyPresses.offer(slot)) {
+            pressesSent++;
             keyPress = slot;
-            keyPressLock.notifyAll();
+            Runnable task = pressTask;
+            if (task != null) {
+                task.run();
+            }
         }
     }
 
     /**
      * Update player and dealer after the player got a point.
-     *
+     * The freeze itself is run by the dealer's freeze scheduler.
      */
     private void pointUpdate() {
-        for (int slot : tokens) {
-            tokens.remove(slot);
-            table.removeToken(id, slot);
-        }
+        tokens.drain(slot -> table.removeToken(id, slot));
         point = false;
-        penaltyTime = env.config.pointFreezeMillis;
-        env.ui.setFreeze(id, penaltyTime);
-        try {
-            Thread.sleep(penaltyTime);
-        } catch (InterruptedException ignored) {
-        }
-        freeze = false;
     }
 
     /**
      * Update player and dealer after the player got a penalty.
-     *
+     * The freeze itself is run by the dealer's freeze scheduler.
      */
     private void penaltyUpdate() {
         penalty = false;
-        penaltyTime = env.config.penaltyFreezeMillis;
-        env.ui.setFreeze(id, penaltyTime);
-        try {
-            Thread.sleep(penaltyTime);
-        } catch (InterruptedException ignored) {
-        }
-        freeze = false;
     }
 
     /**
@@ -315,37 +464,28 @@ public class Player implements Runnable {
      * @param updateScore - player score to set
      */
     public void setScore(int updateScore){ score=updateScore;}
-    /**
-     *
-     * Returns player's tokens
-     * @return - player's tokens.
-     */
-    public ConcurrentLinkedQueue<Integer> getTokens() {
-        return tokens;
-    }
 
     /**
      *
-     * Returns player's penalty time.
-     * @return - player's penalty time
+     * Returns the number of penalties the player got
+     * @return - player's penalties.
      */
-    public long getPenaltyTime() {
-        return penaltyTime;
+    public int penalties() {
+        return penalties;
     }
-
     /**
      *
-     * Set player's penalty time.
-     * @param toUpdate - player penaltyTime to set
+     * Returns player's tokens
+     * @return - player's tokens.
      */
-    public void setPenaltyTime(long toUpdate) {
-        penaltyTime = toUpdate;
+    public AtomicBitSet getTokens() {
+        return tokens;
     }
 
     /**
      *
      * Set player freeze state.
-     * @param toUpdate - player penaltyTime to set
+     * @param toUpdate - true iff the player is frozen
      */
     public void setFreeze(boolean toUpdate) {
         freeze = toUpdate;
@@ -369,6 +509,15 @@ public class Player implements Runnable {
         return keyPress;
     }
 
+    /**
+     *
+     * Returns the queue of key presses (e.g. for its lost presses and latency counters).
+     * @return - player's key presses queue
+     */
+    public KeyPressQueue getKeyPresses(){
+        return keyPresses;
+    }
+
 
 
 
@@ -0,0 +1,264 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class runs the players' loops and the AI (computer) key press loops of a game.
+ * The execution mode is taken from the configuration (see Config.playerThreads):
+ * platform - a dedicated thread per player loop and per AI loop (the original behaviour).
+ * pooled   - no thread per player: AI loops are periodic tasks and a player's key presses are handled by a task the
+ *            player signals for every press (see signalled). All of them run on one bounded pool of
+ *            config.playerThreadPoolSize threads, shared by all the games in the JVM (e.g. the games of a tournament),
+ *            so the number of threads does not grow with the number of players.
+ * virtual  - a virtual thread per player loop and per AI loop (needs a JVM with virtual threads, otherwise the
+ *            pooled mode is used).
+ */
+public class PlayerExecutor {
+
+    /**
+     * The execution modes of the players' loops.
+     */
+    public enum Mode { PLATFORM, POOLED, VIRTUAL }
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The execution mode used.
+     */
+    private final Mode mode;
+
+    /**
+     * Runs the player loops and the AI loops (virtual mode only).
+     */
+    private final ExecutorService loops;
+
+    /**
+     * Runs the AI loops and the players' key press tasks (pooled mode only).
+     */
+    private final ScheduledExecutorService pool;
+
+    /**
+     * The pool of the pooled mode, shared by all the games (created on first use, its threads are daemons).
+     */
+    private static ScheduledThreadPoolExecutor sharedPool;
+
+    /**
+     * The class constructor.
+     *
+     * @param env - the environment object.
+     */
+    public PlayerExecutor(Env env) {
+        this.env = env;
+        Mode requested = parseMode(env.config.playerThreads);
+        ExecutorService virtual = requested == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+        if (requested == Mode.VIRTUAL && virtual == null) {
+            env.logger.severe("virtual threads are not supported by this JVM, running players on pooled threads.");
+            requested = Mode.POOLED;
+        }
+        this.mode = requested;
+        switch (mode) {
+            case VIRTUAL:
+                loops = virtual;
+                pool = null;
+                break;
+            case POOLED:
+                loops = null;
+                pool = sharedPool(Math.max(1, env.config.playerThreadPoolSize));
+                break;
+            default:
+                loops = null;
+                pool = null;
+        }
+    }
+
+    private Mode parseMode(String name) {
+        try {
+            return Mode.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            env.logger.severe("unknown player threads mode " + name + ", using platform threads.");
+            return Mode.PLATFORM;
+        }
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor, so the game still builds for older Java targets.
+     *
+     * @return - an executor starting a virtual thread per task, or null if the JVM has no virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the shared pool, grown to at least the given number of threads.
+     */
+    private static synchronized ScheduledExecutorService sharedPool(int threads) {
+        if (sharedPool == null) {
+            sharedPool = new ScheduledThreadPoolExecutor(threads, daemonThreads("player-pool-"));
+            sharedPool.setRemoveOnCancelPolicy(true);
+        } else if (sharedPool.getCorePoolSize() < threads) {
+            sharedPool.setCorePoolSize(threads);
+        }
+        return sharedPool;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Returns the execution mode used (may differ from the configured one if it is not supported).
+     *
+     * @return - the execution mode.
+     */
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Starts a player: its main loop on a thread of its own, or in pooled mode a task that handles its key presses.
+     *
+     * @param player - the player to run.
+     */
+    public void startPlayer(Player player) {
+        String name = "player-" + player.id;
+        if (mode == Mode.POOLED) {
+            player.startOnPool(signalled(name, player::handlePresses));
+        } else {
+            start(name, player);
+        }
+    }
+
+    /**
+     * Returns a signal that runs a task on the pool (pooled mode only). After one or more signals the task runs once,
+     * never twice at the same time, and it runs again if it was signalled while it was running. So a task that
+     * handles everything that was pending when it started never misses a signal.
+     *
+     * @param name - the name of the task (the name of the pool thread while it runs).
+     * @param task - the task.
+     * @return - the signal.
+     */
+    Runnable signalled(String name, Runnable task) {
+        AtomicInteger signals = new AtomicInteger();
+        Runnable runner = named(name, () -> {
+            int seen;
+            do {
+                seen = signals.get();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    env.logger.severe("task " + name + " failed: " + e);
+                }
+            } while (signals.addAndGet(-seen) != 0);
+        });
+        return () -> {
+            if (signals.getAndIncrement() == 0) pool.execute(runner);
+        };
+    }
+
+    /**
+     * Starts an AI loop that runs a step every delayNanos nanoseconds for as long as running returns true.
+     * The delay is real time: callers convert their game delay with GameClock.toRealSleepNanos, so that a simulated
+     * game keeps the same number of key presses per game second as long as the real delay is not below the clock's
+     * minimum sleep. At a very high simulation speedup the computer players therefore press less often than in a real
+     * time game, instead of spinning a core each.
+     *
+     * @param name       - the name of the loop (used as the thread name where possible).
+     * @param running    - tells if the loop should keep running.
+     * @param step       - one step of the loop (e.g. generates one key press).
+     * @param delayNanos - the real delay between two steps.
+     * @return - a future that completes when the loop stopped.
+     */
+    public Future<?> startAi(String name, BooleanSupplier running, Runnable step, long delayNanos) {
+        if (mode == Mode.POOLED) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+            task.set(pool.scheduleWithFixedDelay(named(name, () -> {
+                try {
+                    if (running.getAsBoolean()) {
+                        step.run();
+                        return;
+                    }
+                    done.complete(null);
+                } catch (RuntimeException | Error e) {
+                    // a periodic task that throws is never run again, so the loop ends here
+                    env.logger.severe("computer loop " + name + " failed: " + e);
+                    done.completeExceptionally(e);
+                }
+                ScheduledFuture<?> self = task.get();
+                if (self != null) self.cancel(false);
+            }), 0, delayNanos, TimeUnit.NANOSECONDS));
+            return done;
+        }
+        FutureTask<Void> loop = new FutureTask<>(() -> {
+            env.logger.info("Thread " + Thread.currentThread().getName() + " starting.");
+            while (running.getAsBoolean()) {
+                step.run();
+                // unlike Thread.sleep, parkNanos is not rounded up to whole milliseconds on older JVMs
+                LockSupport.parkNanos(delayNanos);
+            }
+            env.logger.info("Thread " + Thread.currentThread().getName() + " terminated.");
+        }, null);
+        start(name, loop);
+        return loop;
+    }
+
+    private void start(String name, Runnable task) {
+        if (loops == null) {
+            new Thread(task, name).start();
+        } else {
+            loops.execute(named(name, task));
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs under a thread name, and gives the thread its own name back when it ends.
+     */
+    private static Runnable named(String name, Runnable task) {
+        return () -> {
+            Thread thread = Thread.currentThread();
+            String poolName = thread.getName();
+            thread.setName(name);
+            try {
+                task.run();
+            } finally {
+                thread.setName(poolName);
+            }
+        };
+    }
+
+    /**
+     * Stops the executor of the virtual mode (the loops themselves are stopped by terminating the players, the shared
+     * pool of the pooled mode keeps running for the next games).
+     */
+    public void shutdown() {
+        if (mode == Mode.VIRTUAL) loops.shutdown();
+    }
+}
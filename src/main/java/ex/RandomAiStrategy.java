@@ -0,0 +1,35 @@
+package bguspl.set.ex;
+
+import java.util.SplittableRandom;
+
+/**
+ * Presses a uniformly random slot on every step.
+ */
+public class RandomAiStrategy implements AiStrategy {
+
+    /**
+     * The table the player plays on.
+     */
+    private final Table table;
+
+    /**
+     * The source of randomness.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The class constructor.
+     *
+     * @param table  - the table the player plays on.
+     * @param random - the source of randomness.
+     */
+    public RandomAiStrategy(Table table, SplittableRandom random) {
+        this.table = table;
+        this.random = random;
+    }
+
+    @Override
+    public int nextPress(AtomicBitSet tokens) {
+        return random.nextInt(table.getSlotToCardLength());
+    }
+}
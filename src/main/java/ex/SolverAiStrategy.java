@@ -0,0 +1,186 @@
+package bguspl.set.ex;
+
+import bguspl.set.GameClock;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks a legal set from the table and presses its slots.
+ * Human-like play is simulated by waiting a reaction time (normally distributed) after picking a set and by
+ * picking a wrong set at a given rate. With no reaction time and no errors this is a perfect solver.
+ */
+public class SolverAiStrategy implements AiStrategy {
+
+    /**
+     * The table the player plays on.
+     */
+    private final Table table;
+
+    /**
+     * The clock the reaction time is measured with.
+     */
+    private final GameClock clock;
+
+    /**
+     * The source of randomness.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The mean and standard deviation of the reaction time, in milliseconds.
+     */
+    private final long reactionMillis;
+    private final long reactionDeviationMillis;
+
+    /**
+     * The probability of picking a wrong set.
+     */
+    private final double errorRate;
+
+    /**
+     * The slots of the set being pressed (null if none was picked).
+     */
+    private int[] targetSlots;
+
+    /**
+     * The cards that were in the target slots when the set was picked.
+     */
+    private int[] targetCards;
+
+    /**
+     * The time from which the target slots may be pressed.
+     */
+    private long pressTime;
+
+    /**
+     * The class constructor.
+     *
+     * @param table                   - the table the player plays on.
+     * @param clock                   - the game clock.
+     * @param random                  - the source of randomness.
+     * @param reactionMillis          - the mean time from picking a set until pressing it.
+     * @param reactionDeviationMillis - the standard deviation of that time.
+     * @param errorRate               - the probability of picking a wrong set (0 to 1).
+     */
+    public SolverAiStrategy(Table table, GameClock clock, SplittableRandom random, long reactionMillis,
+                            long reactionDeviationMillis, double errorRate) {
+        this.table = table;
+        this.clock = clock;
+        this.random = random;
+        this.reactionMillis = reactionMillis;
+        this.reactionDeviationMillis = reactionDeviationMillis;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public boolean readsTokens() {
+        return true;
+    }
+
+    @Override
+    public int nextPress(AtomicBitSet tokens) {
+        if (targetSlots == null || !targetOnTable()) {
+            if (!pickTarget()) {
+                return NO_PRESS;
+            }
+        }
+        if (clock.millis() < pressTime) {
+            return NO_PRESS;
+        }
+        // first take back the tokens that are not part of the target, then place the missing ones
+        for (int slot : tokens.toArray()) {
+            if (!isTarget(slot)) {
+                return slot;
+            }
+        }
+        for (int slot : targetSlots) {
+            if (!tokens.get(slot)) {
+                return slot;
+            }
+        }
+        // the whole target is placed and claimed, pick a new one next time
+        targetSlots = null;
+        return NO_PRESS;
+    }
+
+    /**
+     * Picks a random legal set on the table (or, at the error rate, a set with one wrong card) as the new target.
+     *
+     * @return - true iff a target was picked.
+     */
+    private boolean pickTarget() {
+        targetSlots = null;
+        int[] chosen = null;
+        int seen = 0;
+        for (int[] set : table.getLegalSets()) {
+            // reservoir sampling, so the (copy on write) list is walked once
+            if (random.nextInt(++seen) == 0) {
+                chosen = set;
+            }
+        }
+        if (chosen == null) {
+            return false;
+        }
+        int[] slots = new int[chosen.length];
+        for (int i = 0; i < chosen.length; i++) {
+            Integer slot = table.getSlot(chosen[i]);
+            if (slot == null) {
+                return false;
+            }
+            slots[i] = slot;
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            int wrong = random.nextInt(table.getSlotToCardLength());
+            if (!table.isSlotEmpty(wrong) && !contains(slots, wrong)) {
+                slots[random.nextInt(slots.length)] = wrong;
+            }
+        }
+        int[] cards = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            Integer card = table.getCard(slots[i]);
+            if (card == null) {
+                return false;
+            }
+            cards[i] = card;
+        }
+        targetSlots = slots;
+        targetCards = cards;
+        long reaction = reactionMillis + (long) (nextGaussian() * reactionDeviationMillis);
+        pressTime = clock.millis() + Math.max(0, reaction);
+        return true;
+    }
+
+    /**
+     * Draws a standard normal value (Box-Muller), since SplittableRandom has no nextGaussian.
+     */
+    private double nextGaussian() {
+        double uniform = 1.0 - random.nextDouble(); // in (0, 1], so the log is finite
+        return Math.sqrt(-2 * Math.log(uniform)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Checks that the cards of the target are still in their slots.
+     */
+    private boolean targetOnTable() {
+        for (int i = 0; i < targetSlots.length; i++) {
+            Integer card = table.getCard(targetSlots[i]);
+            if (card == null || card != targetCards[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isTarget(int slot) {
+        return contains(targetSlots, slot);
+    }
+
+    private static boolean contains(int[] slots, int slot) {
+        for (int other : slots) {
+            if (other == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,10 +1,15 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.GameJournal;
+import bguspl.set.Histogram;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -29,11 +34,38 @@ public class Table {
      */
     protected final Integer[] cardToSlot; // slot per card (if any)
 
+    /**
+     * The players that have a token on each slot (slotPlayers[slot] has the ids of the players as members).
+     */
+    private final AtomicBitSet[] slotPlayers;
+
+    /**
+     * The time spent waiting the table delays.
+     */
+    private final Histogram tableDelayNanos;
+
     /**
      * Variable for reshuffle state.
      */
     private volatile boolean reshuffle;
 
+    /**
+     * The legal sets currently on the table (each one is a sorted array of card ids).
+     * Maintained as cards are placed and removed, and copied on write so any thread may read it.
+     */
+    private final List<int[]> legalSets;
+
+    /**
+     * True iff legal sets are updated one card at a time (possible only when a pair of cards has a single completing
+     * card, see Util.findThirdCard). Otherwise they are searched again on every change.
+     */
+    private final boolean incrementalSets;
+
+    /**
+     * The number of values per feature for which a set is completed by a single card.
+     */
+    private static final int SET_FEATURE_SIZE = 3;
+
     /**
      * Constructor for testing.
      *
@@ -46,7 +78,14 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
+        this.slotPlayers = new AtomicBitSet[slotToCard.length];
+        for (int slot = 0; slot < slotPlayers.length; slot++) {
+            slotPlayers[slot] = new AtomicBitSet(env.config.players);
+        }
+        this.tableDelayNanos = env.metrics.histogram("table.delayNanos");
         this.reshuffle = false;
+        this.legalSets = new CopyOnWriteArrayList<>();
+        this.incrementalSets = env.config.featureSize == SET_FEATURE_SIZE;
     }
 
     /**
@@ -62,8 +101,7 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        legalSets.forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -71,6 +109,82 @@ public class Table {
         });
     }
 
+    /**
+     * Checks if there is at least one legal set on the table.
+     *
+     * @return - true iff the cards on the table contain a legal set.
+     */
+    public boolean hasLegalSet() {
+        return !legalSets.isEmpty();
+    }
+
+    /**
+     * Returns the legal sets on the table. The list may be iterated by any thread (each iteration sees a snapshot).
+     *
+     * @return - the legal sets currently on the table (each one is a sorted array of card ids).
+     */
+    public List<int[]> getLegalSets() {
+        return Collections.unmodifiableList(legalSets);
+    }
+
+    /**
+     * Returns the number of legal sets on the table.
+     *
+     * @return - the number of legal sets currently on the table.
+     */
+    public int countLegalSets() {
+        return legalSets.size();
+    }
+
+    /**
+     * Adds the legal sets formed by a card that was just placed and any two other cards on the table.
+     *
+     * @param card - the card that was placed.
+     * @param slot - the slot in which the card was placed.
+     */
+    private void addLegalSets(int card, int slot) {
+        if (!incrementalSets) {
+            searchLegalSets();
+            return;
+        }
+        for (int other = 0; other < slotToCard.length; other++) {
+            if (other == slot || slotToCard[other] == null) continue;
+            int second = slotToCard[other];
+            int third = env.util.findThirdCard(card, second);
+            if (third < 0 || third == card || third == second || third >= cardToSlot.length) continue;
+            Integer thirdSlot = cardToSlot[third];
+            // each set is found twice (once from each of the other two cards), keep the one with the lower slot
+            if (thirdSlot != null && thirdSlot != slot && other < thirdSlot) {
+                int[] set = {card, second, third};
+                Arrays.sort(set);
+                legalSets.add(set);
+            }
+        }
+    }
+
+    /**
+     * Removes the legal sets that contained a card that was just removed.
+     *
+     * @param card - the card that was removed.
+     */
+    private void removeLegalSets(int card) {
+        if (!incrementalSets) {
+            searchLegalSets();
+            return;
+        }
+        legalSets.removeIf(set -> Arrays.stream(set).anyMatch(setCard -> setCard == card));
+    }
+
+    /**
+     * Searches all the legal sets on the table from scratch.
+     */
+    private void searchLegalSets() {
+        int[] cards = Arrays.stream(slotToCard).filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
+        List<int[]> sets = env.util.findSets(cards, cards.length, Integer.MAX_VALUE);
+        legalSets.clear();
+        legalSets.addAll(sets);
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
@@ -84,6 +198,18 @@ public class Table {
         return cards;
     }
 
+    /**
+     * Waits the configured table delay and records how long it took.
+     */
+    private void tableDelay() {
+        if (env.config.tableDelayMillis <= 0) return;
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
+        tableDelayNanos.record(System.nanoTime() - start);
+    }
+
     /**
      * Places a card on the table in a grid slot.
      * @param card - the card id to place in the slot.
@@ -92,12 +218,12 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        tableDelay();
 
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
+        addLegalSets(card, slot);
+        env.journal.append(GameJournal.Event.CARD_PLACED, GameJournal.NO_PLAYER, slot, card);
         env.ui.placeCard(card, slot);
     }
 
@@ -109,9 +235,7 @@ public class Table {
      *
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        tableDelay();
         if(slotToCard[slot]==null){
             System.out.println("test");
         }
@@ -119,6 +243,8 @@ public class Table {
         int card= slotToCard[slot];
         slotToCard[slot]=null;
         cardToSlot[card]=null;
+        removeLegalSets(card);
+        env.journal.append(GameJournal.Event.CARD_REMOVED, GameJournal.NO_PLAYER, slot, card);
         env.ui.removeCard(slot);
     }
 
@@ -131,6 +257,8 @@ public class Table {
      */
     public void placeToken(int player, int slot) {
         if(slotToCard[slot]!=null){
+            slotPlayers[slot].set(player);
+            env.journal.append(GameJournal.Event.TOKEN_PLACED, player, slot, 0);
             env.ui.placeToken(player, slot);
         }
     }
@@ -142,13 +270,40 @@ public class Table {
      * @return       - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
+        slotPlayers[slot].clear(player);
         if(slotToCard[slot]==null){
             return false;
         }
+        env.journal.append(GameJournal.Event.TOKEN_REMOVED, player, slot, 0);
         env.ui.removeToken(player, slot);
         return true;
     }
 
+    /**
+     * Removes the tokens of all the players from a grid slot.
+     * @param slot   - the slot from which to remove the tokens.
+     * @param owners - called with the id of every player whose token was removed.
+     */
+    public void removeTokens(int slot, IntConsumer owners) {
+        if (slotPlayers[slot].isEmpty()) {
+            return;
+        }
+        slotPlayers[slot].drain(owners);
+        env.journal.append(GameJournal.Event.TOKENS_REMOVED, GameJournal.NO_PLAYER, slot, 0);
+        env.ui.removeTokens(slot);
+    }
+
+    /**
+     * Removes all the tokens from the table.
+     */
+    public void removeAllTokens() {
+        for (AtomicBitSet players : slotPlayers) {
+            players.clearAll();
+        }
+        env.journal.append(GameJournal.Event.TOKENS_CLEARED, GameJournal.NO_PLAYER, GameJournal.NO_SLOT, 0);
+        env.ui.removeTokens();
+    }
+
     /**
      * Returns Integer[] slotToCard length.
      * @return       - slotToCard length.
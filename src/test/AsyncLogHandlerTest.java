@@ -0,0 +1,65 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    private static AsyncLogHandler handler(Path file, int capacity) throws IOException {
+        AsyncLogHandler handler = new AsyncLogHandler(file, capacity);
+        handler.setFormatter(new SimpleFormatter() {
+            @Override
+            public String format(LogRecord lr) {
+                return formatMessage(lr) + System.lineSeparator();
+            }
+        });
+        return handler;
+    }
+
+    @Test
+    void publish_FormatsParametersOnFlush() throws IOException {
+        Path file = Files.createTempFile("async-log", ".log");
+        AsyncLogHandler handler = handler(file, 16);
+        LogRecord record = new LogRecord(Level.SEVERE, "placing card {0,number,#} in slot {1,number,#}");
+        record.setParameters(new Object[]{80, 11});
+        handler.publish(record);
+        handler.flush();
+        assertEquals("placing card 80 in slot 11", Files.readAllLines(file, StandardCharsets.UTF_8).get(0));
+        handler.close();
+        Files.delete(file);
+    }
+
+    @Test
+    void close_WritesAllRecordsFromAllThreads() throws Exception {
+        Path file = Files.createTempFile("async-log", ".log");
+        AsyncLogHandler handler = handler(file, 1 << 14);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.execute(() -> {
+                for (int i = 0; i < 1000; i++) handler.publish(new LogRecord(Level.INFO, thread + ":" + i));
+            });
+        }
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10, TimeUnit.SECONDS));
+        handler.close();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(4000, lines.size());
+        assertTrue(lines.contains("3:999"));
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,39 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtomicBitSetTest {
+
+    @Test
+    void setAndClear() {
+        AtomicBitSet set = new AtomicBitSet(12);
+        assertTrue(set.set(3));
+        assertFalse(set.set(3));
+        assertTrue(set.set(11));
+        assertEquals(2, set.cardinality());
+        assertTrue(set.get(11));
+        assertTrue(set.clear(3));
+        assertFalse(set.clear(3));
+        assertArrayEquals(new int[]{11}, set.toArray());
+    }
+
+    @Test
+    void drain_SpansWords() {
+        AtomicBitSet set = new AtomicBitSet(200);
+        set.set(0);
+        set.set(64);
+        set.set(199);
+        List<Integer> drained = new ArrayList<>();
+        set.drain(drained::add);
+        assertEquals(List.of(0, 64, 199), drained);
+        assertTrue(set.isEmpty());
+    }
+}
@@ -0,0 +1,94 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class GameJournalTest {
+
+    private final Logger logger = Logger.getLogger("GameJournalTest");
+
+    @Test
+    void replay_OnlyTheGameRequestedInOrder() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("game", ".journal");
+        GameJournal journal = new GameJournal(logger, file);
+        GameJournal.Recorder first = journal.recorder(0, new GameClock(1));
+        GameJournal.Recorder second = journal.recorder(1, new GameClock(1));
+        first.append(GameJournal.Event.CARD_PLACED, GameJournal.NO_PLAYER, 4, 17);
+        second.append(GameJournal.Event.CARD_PLACED, GameJournal.NO_PLAYER, 0, 80);
+        first.append(GameJournal.Event.TOKEN_PLACED, 1, 4, 0);
+        first.append(GameJournal.Event.SCORE, 1, GameJournal.NO_SLOT, 1);
+        first.append(GameJournal.Event.CARD_REMOVED, GameJournal.NO_PLAYER, 4, 17);
+        journal.close();
+        assertEquals(5, journal.size());
+        assertEquals(GameJournal.HEADER_SIZE + 5 * GameJournal.RECORD_SIZE, Files.size(file));
+
+        UserInterface ui = mock(UserInterface.class);
+        assertEquals(4, new JournalReplayer(file).replay(0, ui, 0));
+        InOrder order = inOrder(ui);
+        order.verify(ui).placeCard(17, 4);
+        order.verify(ui).placeToken(1, 4);
+        order.verify(ui).setScore(1, 1);
+        order.verify(ui).removeCard(4);
+        order.verify(ui).announceWinner(new int[]{1});
+        verify(ui, never()).placeCard(80, 0);
+        Files.delete(file);
+    }
+
+    @Test
+    void replay_PaddedJournalStopsAtTheRecordCount() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("game", ".journal");
+        GameJournal journal = new GameJournal(logger, file);
+        GameJournal.Recorder recorder = journal.recorder(0, new GameClock(1));
+        recorder.append(GameJournal.Event.FREEZE, 2, GameJournal.NO_SLOT, 3000);
+        recorder.append(GameJournal.Event.FREEZE, 2, GameJournal.NO_SLOT, 2000);
+        journal.close();
+        // as left by a file system that cannot truncate a mapped file, with a stale record past the count
+        byte[] padding = new byte[10 * GameJournal.RECORD_SIZE];
+        padding[GameJournal.RECORD_SIZE + 12] = GameJournal.Event.SCORE.code;
+        Files.write(file, padding, StandardOpenOption.APPEND);
+
+        UserInterface ui = mock(UserInterface.class);
+        assertEquals(2, new JournalReplayer(file).replay(0, ui, 0));
+        InOrder order = inOrder(ui);
+        order.verify(ui).setFreeze(2, 3000);
+        order.verify(ui).setFreeze(2, 2000);
+        verify(ui, never()).setScore(anyInt(), anyInt());
+        Files.delete(file);
+    }
+
+    @Test
+    void append_ManySegmentsFromManyThreads() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("game", ".journal");
+        GameJournal journal = new GameJournal(logger, file);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            GameJournal.Recorder recorder = journal.recorder(t, new GameClock(1));
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++)
+                    recorder.append(GameJournal.Event.TOKEN_PLACED, 0, i % 12, 0);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        journal.close();
+        assertEquals(400_000, journal.size());
+
+        UserInterface ui = mock(UserInterface.class);
+        assertEquals(100_000, new JournalReplayer(file).replay(3, ui, 0));
+        verify(ui, never()).placeCard(anyInt(), anyInt());
+        Files.delete(file);
+    }
+}
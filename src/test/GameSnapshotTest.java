@@ -0,0 +1,169 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.HeadlessUserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GameSnapshotTest {
+
+    @Mock
+    private Logger logger;
+
+    /**
+     * The table of the last game created.
+     */
+    private Table table;
+
+    private Config config() {
+        Properties properties = new Properties();
+        properties.put("Simulation", "True");
+        properties.put("SimulationSpeedup", "100");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("ComputerStrategy", "human");
+        properties.put("AiReactionSeconds", "2");
+        properties.put("AiErrorRate", "0");
+        properties.put("Seed", "7");
+        return new Config(logger, properties);
+    }
+
+    private Dealer newGame(Config config) {
+        Env env = new Env(logger, config, new HeadlessUserInterface(), new UtilImpl(config));
+        Player[] players = new Player[config.players];
+        table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+        return dealer;
+    }
+
+    @Test
+    void snapshot_MidGameRoundTripAndResume() throws Exception {
+        Config config = config();
+        Dealer dealer = newGame(config);
+        Thread thread = new Thread(dealer, "dealer");
+        thread.start();
+        Thread.sleep(200);
+        GameSnapshot snapshot = dealer.snapshot().get(5, TimeUnit.SECONDS);
+        dealer.terminate();
+        thread.join(5000);
+
+        // every card is in exactly one place: the deck, the table or out of the game
+        boolean[] seen = new boolean[config.deckSize];
+        int[] deck = snapshot.deck();
+        for (int card : deck) {
+            assertFalse(seen[card]);
+            seen[card] = true;
+        }
+        for (int slot = 0; slot < snapshot.tableSize; slot++) {
+            int card = snapshot.card(slot);
+            if (card == GameSnapshot.NO_CARD) continue;
+            assertFalse(seen[card]);
+            seen[card] = true;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.write(bytes);
+        GameSnapshot read = GameSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertArrayEquals(deck, read.deck());
+        assertEquals(snapshot.turnMillisLeft, read.turnMillisLeft);
+        for (int player = 0; player < snapshot.players(); player++) {
+            assertArrayEquals(snapshot.tokens(player), read.tokens(player));
+            assertEquals(snapshot.score(player), read.score(player));
+            assertEquals(snapshot.freezeMillisLeft(player), read.freezeMillisLeft(player));
+        }
+
+        Dealer resumed = newGame(config);
+        resumed.restore(read);
+        for (int slot = 0; slot < read.tableSize; slot++) {
+            Integer card = table.getCard(slot);
+            assertEquals(read.card(slot), card == null ? GameSnapshot.NO_CARD : card);
+        }
+        for (Player player : resumed.getPlayers()) {
+            assertEquals(read.score(player.id), player.score());
+            assertArrayEquals(read.tokens(player.id), player.getTokens().toArray());
+        }
+
+        Thread resumedThread = new Thread(resumed, "resumed-dealer");
+        resumedThread.start();
+        resumedThread.join(30_000);
+        assertFalse(resumedThread.isAlive());
+        assertTrue(resumed.isAnnounced);
+        int snapshotSets = 0, finalSets = 0;
+        for (Player player : resumed.getPlayers()) {
+            snapshotSets += read.score(player.id);
+            finalSets += player.score();
+        }
+        assertTrue(finalSets > snapshotSets);
+    }
+
+    @Test
+    void snapshot_ConsistentWhileComputerPlayersRun() throws Exception {
+        Properties properties = new Properties();
+        properties.put("Simulation", "True");
+        properties.put("SimulationSpeedup", "10");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "4");
+        properties.put("ComputerStrategy", "human");
+        properties.put("AiReactionSeconds", "0.05");
+        properties.put("AiErrorRate", "0.3");
+        properties.put("Seed", "11");
+        Config config = new Config(logger, properties);
+        Dealer dealer = newGame(config);
+        Thread thread = new Thread(dealer, "dealer");
+        thread.start();
+        try {
+            for (int i = 0; i < 50; i++) {
+                GameSnapshot snapshot;
+                try {
+                    snapshot = dealer.snapshot().get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException gameOver) {
+                    break;
+                }
+                for (int player = 0; player < snapshot.players(); player++) {
+                    int[] tokens = snapshot.tokens(player);
+                    assertTrue(tokens.length <= dealer.MAX_TOKENS_FOR_PLAYER);
+                    // a pending claim is always of a complete set of tokens
+                    if (snapshot.claimPending(player))
+                        assertEquals(dealer.MAX_TOKENS_FOR_PLAYER, tokens.length);
+                    for (int slot : tokens)
+                        assertTrue(snapshot.card(slot) != GameSnapshot.NO_CARD);
+                }
+                Thread.sleep(2);
+            }
+        } finally {
+            dealer.terminate();
+            thread.join(5000);
+        }
+    }
+
+    @Test
+    void read_RejectsOtherData() {
+        byte[] bytes = Arrays.copyOf("not a snapshot".getBytes(), 64);
+        assertThrows(IOException.class, () -> GameSnapshot.read(new ByteArrayInputStream(bytes)));
+    }
+}
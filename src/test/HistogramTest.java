@@ -0,0 +1,36 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void percentile_WithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(10_000, histogram.count());
+        assertEquals(10_000_000, histogram.max());
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        assertTrue(Math.abs(p50 - 5_000_000) <= 5_000_000 / 16, "p50 " + p50);
+        assertTrue(Math.abs(p99 - 9_900_000) <= 9_900_000 / 16, "p99 " + p99);
+        assertEquals(10_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void smallValues_Exact() {
+        Histogram histogram = new Histogram();
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(-5);
+        assertEquals(0, histogram.percentile(1));
+        assertEquals(3, histogram.percentile(50));
+        assertEquals(7, histogram.percentile(100));
+        assertEquals(10 / 3.0, histogram.mean(), 1e-9);
+    }
+}
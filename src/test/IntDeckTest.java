@@ -0,0 +1,33 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntDeckTest {
+
+    @Test
+    void shuffle_SameSeedSameOrder() {
+        IntDeck first = new IntDeck(81);
+        IntDeck second = new IntDeck(81);
+        first.shuffle(new SplittableRandom(17));
+        second.shuffle(new SplittableRandom(17));
+        assertArrayEquals(first.cards(), second.cards());
+        int[] sorted = first.cards().clone();
+        Arrays.sort(sorted);
+        assertEquals(80, sorted[80]);
+    }
+
+    @Test
+    void drawAndAdd() {
+        IntDeck deck = new IntDeck(3);
+        assertEquals(2, deck.draw());
+        deck.add(7);
+        assertEquals(7, deck.draw());
+        assertEquals(2, deck.size());
+    }
+}
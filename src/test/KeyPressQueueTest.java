@@ -0,0 +1,97 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPressQueueTest {
+
+    @Test
+    void offer_DropsWhenFull() throws InterruptedException {
+        KeyPressQueue queue = new KeyPressQueue(3);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(1, queue.lostPresses());
+        assertEquals(1, queue.take());
+        assertTrue(queue.offer(5));
+        assertEquals(2, queue.take());
+        assertEquals(3, queue.take());
+        assertEquals(5, queue.take());
+        assertEquals(4, queue.takenPresses());
+    }
+
+    @Test
+    void put_WaitsForConsumer() throws InterruptedException {
+        KeyPressQueue queue = new KeyPressQueue(3);
+        int presses = 10000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < presses; i++)
+                queue.put(i);
+        });
+        producer.start();
+        for (int i = 0; i < presses; i++)
+            assertEquals(i, queue.take());
+        producer.join();
+        assertEquals(0, queue.lostPresses());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void pingPong_NoPressStranded() throws InterruptedException {
+        // every press is offered only after the previous one was taken, so the consumer parks on (almost) every take
+        // and a lost wake-up leaves a press in the queue with nobody taking it
+        KeyPressQueue queue = new KeyPressQueue(1);
+        int presses = 100000;
+        AtomicInteger taken = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < presses; i++) {
+                    queue.take();
+                    taken.incrementAndGet();
+                }
+            } catch (InterruptedException ignored) {
+            }
+        });
+        consumer.start();
+        String stranded = null;
+        for (int i = 0; i < presses && stranded == null; i++) {
+            assertTrue(queue.put(i));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (taken.get() <= i && stranded == null) {
+                if (System.nanoTime() > deadline) stranded = "press " + i + " was never taken";
+                Thread.yield();
+            }
+        }
+        consumer.interrupt();
+        consumer.join();
+        assertNull(stranded);
+        assertEquals(presses, queue.takenPresses());
+    }
+
+    @Test
+    void put_FullQueueProducerAlwaysWokenUp() throws InterruptedException {
+        // a capacity of 1 makes the producer park on almost every put
+        KeyPressQueue queue = new KeyPressQueue(1);
+        int presses = 100000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < presses; i++)
+                queue.put(i);
+        });
+        producer.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < presses; i++)
+                assertEquals(i, queue.take());
+            producer.join();
+        });
+    }
+}
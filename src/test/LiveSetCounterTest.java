@@ -0,0 +1,61 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class LiveSetCounterTest {
+
+    Env env;
+    LiveSetCounter liveSets;
+    @Mock
+    private UserInterface ui;
+    @Mock
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        Config config = new Config(logger, new Properties());
+        env = new Env(logger, config, ui, new UtilImpl(config));
+        liveSets = new LiveSetCounter(env);
+    }
+
+    @Test
+    void countLiveSets_FullDeck() {
+        assertEquals(1080, liveSets.countLiveSets());
+        assertTrue(liveSets.hasSets());
+    }
+
+    @Test
+    void remove_SameAsFullSearch() {
+        List<Integer> cards = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, new Random(3));
+        List<Integer> left = new ArrayList<>(cards);
+        for (int card : cards) {
+            liveSets.remove(card);
+            left.remove(Integer.valueOf(card));
+            assertEquals(env.util.findSets(left, Integer.MAX_VALUE).size(), liveSets.countLiveSets());
+        }
+        assertFalse(liveSets.hasSets());
+    }
+}
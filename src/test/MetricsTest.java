@@ -0,0 +1,33 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void counterAndHistogram_SameInstancePerName() {
+        Metrics metrics = new Metrics();
+        metrics.counter("dealer.claims").increment();
+        metrics.counter("dealer.claims").add(2);
+        assertEquals(3, metrics.counter("dealer.claims").sum());
+        assertSame(metrics.histogram("dealer.loopNanos"), metrics.histogram("dealer.loopNanos"));
+    }
+
+    @Test
+    void dump_SortedWithMicros() {
+        Metrics metrics = new Metrics();
+        metrics.counter("b.count").increment();
+        metrics.counter("a.count").increment();
+        metrics.histogram("c.latencyNanos").record(2000);
+        List<String> lines = metrics.dump();
+        assertEquals("a.count = 1", lines.get(0));
+        assertEquals("b.count = 1", lines.get(1));
+        assertTrue(lines.get(2).startsWith("c.latency: count=1 mean=2.0us"), lines.get(2));
+    }
+}
@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.Util;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PlayerExecutorTest {
+
+    @Mock
+    private Logger logger;
+    @Mock
+    private UserInterface ui;
+    @Mock
+    private Util util;
+
+    @Test
+    void pooledAi_FailingStepEndsTheLoop() {
+        Properties properties = new Properties();
+        properties.put("PlayerThreads", "pooled");
+        PlayerExecutor executor = new PlayerExecutor(new Env(logger, new Config(logger, properties), ui, util));
+        assertEquals(PlayerExecutor.Mode.POOLED, executor.mode());
+        Future<?> loop = executor.startAi("computer-0", () -> true, () -> {
+            throw new NullPointerException("strategy bug");
+        }, TimeUnit.MILLISECONDS.toNanos(1));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> loop.get(5, TimeUnit.SECONDS));
+        assertEquals(NullPointerException.class, failure.getCause().getClass());
+        executor.shutdown();
+    }
+
+    @Test
+    void signalled_RunsOneAtATimeAndAfterTheLastSignal() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("PlayerThreads", "pooled");
+        properties.put("PlayerThreadPoolSize", "4");
+        PlayerExecutor executor = new PlayerExecutor(new Env(logger, new Config(logger, properties), ui, util));
+        AtomicInteger pending = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        Runnable signal = executor.signalled("presses", () -> {
+            if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+            pending.set(0);
+            running.decrementAndGet();
+        });
+        Thread[] signallers = new Thread[4];
+        for (int i = 0; i < signallers.length; i++) {
+            signallers[i] = new Thread(() -> {
+                for (int press = 0; press < 10000; press++) {
+                    pending.incrementAndGet();
+                    signal.run();
+                }
+            });
+            signallers[i].start();
+        }
+        for (Thread signaller : signallers)
+            signaller.join();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pending.get() != 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertEquals(0, pending.get());
+        assertEquals(0, overlaps.get());
+    }
+}
@@ -0,0 +1,62 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.GameClock;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+class SolverAiStrategyTest {
+
+    Table table;
+    @Mock
+    private UserInterface ui;
+    @Mock
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        Config config = new Config(logger, properties);
+        table = new Table(new Env(logger, config, ui, new UtilImpl(config)));
+        // cards 0, 1 and 2 are the only set: they differ only in the first feature
+        table.placeCard(0, 4);
+        table.placeCard(1, 9);
+        table.placeCard(2, 0);
+        table.placeCard(4, 6);
+    }
+
+    @Test
+    void perfect_PressesTheLegalSet() {
+        AiStrategy strategy = new SolverAiStrategy(table, new GameClock(1), new SplittableRandom(1), 0, 0, 0);
+        AtomicBitSet tokens = new AtomicBitSet(table.getSlotToCardLength());
+        tokens.set(6); // a stray token is taken back first
+        assertEquals(6, strategy.nextPress(tokens));
+        tokens.clear(6);
+        for (int i = 0; i < 3; i++) {
+            tokens.set(strategy.nextPress(tokens));
+        }
+        assertArrayEquals(new int[]{0, 4, 9}, tokens.toArray());
+        assertEquals(AiStrategy.NO_PRESS, strategy.nextPress(tokens));
+    }
+
+    @Test
+    void human_WaitsForReaction() {
+        AiStrategy strategy = new SolverAiStrategy(table, new GameClock(1), new SplittableRandom(1), 60_000, 0, 0);
+        assertEquals(AiStrategy.NO_PRESS, strategy.nextPress(new AtomicBitSet(table.getSlotToCardLength())));
+    }
+}
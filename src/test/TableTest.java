@@ -4,6 +4,7 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,11 +13,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 
@@ -154,9 +157,24 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public int findThirdCard(int first, int second) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
-            return null;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<int[]> findSets(int[] deck, int size, int count) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<int[]> findSetsParallel(int[] deck, int size, int count) {
+            return Collections.emptyList();
         }
 
         @Override
@@ -182,6 +200,26 @@ class TableTest {
         verify(ui).placeCard(eq(card),eq(slot));
     }
 
+    @Test
+    void placeCard_TracksLegalSets(){
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        Config config = new Config(new MockLogger(), properties);
+        Env env = new Env(new MockLogger(), config, ui, new UtilImpl(config));
+        Table table = new Table(env);
+        table.placeCard(0, 0);
+        table.placeCard(1, 5);
+        assertFalse(table.hasLegalSet());
+        table.placeCard(2, 7);
+        table.placeCard(40, 1);
+        table.placeCard(80, 2);
+        assertEquals(2, table.countLegalSets());
+        table.removeCard(7);
+        assertEquals(1, table.countLegalSets());
+        table.removeCard(0);
+        assertFalse(table.hasLegalSet());
+    }
+
     @Test
     void removeToken(){
         fillSomeSlots();
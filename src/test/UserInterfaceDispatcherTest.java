@@ -0,0 +1,88 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import javax.swing.SwingUtilities;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserInterfaceDispatcherTest {
+
+    @Mock
+    private Logger logger;
+    @Mock
+    private UserInterface ui;
+
+    private UserInterfaceDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        // a frame rate low enough that all the updates of a test fall in the frame of dispose
+        properties.put("UiFramesPerSecond", "1");
+        dispatcher = new UserInterfaceDispatcher(new Config(logger, properties), ui);
+    }
+
+    private void lastFrame() throws Exception {
+        dispatcher.dispose();
+        SwingUtilities.invokeAndWait(() -> {});
+    }
+
+    @Test
+    void updates_MergedWithinAFrame() throws Exception {
+        dispatcher.placeCard(5, 3);
+        dispatcher.placeToken(0, 3);
+        dispatcher.placeToken(1, 3);
+        dispatcher.removeToken(1, 3);
+        for (long millies = 60000; millies >= 50000; millies -= 10)
+            dispatcher.setCountdown(millies, false);
+        dispatcher.setScore(1, 1);
+        dispatcher.setScore(1, 2);
+        lastFrame();
+
+        InOrder order = inOrder(ui);
+        order.verify(ui).placeCard(5, 3);
+        order.verify(ui).placeToken(0, 3);
+        verify(ui, never()).placeToken(1, 3);
+        verify(ui, never()).removeToken(anyInt(), anyInt());
+        verify(ui, times(1)).setCountdown(anyLong(), anyBoolean());
+        verify(ui).setCountdown(50000, false);
+        verify(ui, times(1)).setScore(anyInt(), anyInt());
+        verify(ui).setScore(1, 2);
+        verify(ui).dispose();
+    }
+
+    @Test
+    void cardRemovedAndWinners_Applied() throws Exception {
+        dispatcher.placeCard(7, 0);
+        lastFrame();
+        setUp();
+        dispatcher.removeCard(0); // nothing shown yet in the new dispatcher
+        dispatcher.setFreeze(0, 3000);
+        dispatcher.setCountdown(900, true);
+        dispatcher.announceWinner(new int[]{1});
+        lastFrame();
+
+        verify(ui, never()).removeCard(anyInt());
+        verify(ui).setFreeze(0, 3000);
+        verify(ui).setCountdown(900, true);
+        verify(ui).announceWinner(new int[]{1});
+    }
+}
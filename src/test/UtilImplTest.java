@@ -0,0 +1,116 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UtilImplTest {
+
+    Config config;
+    UtilImpl util;
+
+    @BeforeEach
+    void setUp() {
+        config = new Config(new MockLogger(), new Properties());
+        util = new UtilImpl(config);
+    }
+
+    /**
+     * Reference implementation: tests every combination of 3 cards in lexicographic order of deck positions.
+     */
+    private List<int[]> bruteForceSets(List<Integer> deck, int count) {
+        List<int[]> sets = new ArrayList<>();
+        for (int i = 0; i < deck.size(); ++i)
+            for (int j = i + 1; j < deck.size(); ++j)
+                for (int k = j + 1; k < deck.size(); ++k) {
+                    int[] cards = IntStream.of(deck.get(i), deck.get(j), deck.get(k)).sorted().toArray();
+                    if (util.testSet(cards)) {
+                        sets.add(cards);
+                        if (sets.size() >= count) return sets;
+                    }
+                }
+        return sets;
+    }
+
+    private void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertArrayEquals(expected.get(i), actual.get(i));
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        assertEquals(1080, util.findSets(deck, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_SameAsBruteForce() {
+        Random random = new Random(42);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        for (int round = 0; round < 20; ++round) {
+            Collections.shuffle(deck, random);
+            List<Integer> part = deck.subList(0, 12 + round);
+            assertSameSets(bruteForceSets(part, Integer.MAX_VALUE), util.findSets(part, Integer.MAX_VALUE));
+            assertSameSets(bruteForceSets(part, 1), util.findSets(part, 1));
+        }
+    }
+
+    @Test
+    void findSets_PackedSameAsUnpacked() {
+        Properties properties = new Properties();
+        properties.put("PackedCards", "False");
+        UtilImpl unpacked = new UtilImpl(new Config(new MockLogger(), properties));
+        Random random = new Random(7);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        for (int round = 0; round < 20; ++round) {
+            Collections.shuffle(deck, random);
+            List<Integer> part = deck.subList(0, 12 + round);
+            assertSameSets(unpacked.findSets(part, Integer.MAX_VALUE), util.findSets(part, Integer.MAX_VALUE));
+            int[] cards = {part.get(0), part.get(1), part.get(2)};
+            assertEquals(unpacked.testSet(cards), util.testSet(cards));
+        }
+    }
+
+    @Test
+    void findSetsParallel_SameAsSequential() {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", "6");
+        UtilImpl util = new UtilImpl(new Config(new MockLogger(), properties));
+        int[] deck = IntStream.range(0, 729).toArray();
+        assertSameSets(util.findSets(deck, deck.length, Integer.MAX_VALUE),
+                util.findSetsParallel(deck, deck.length, Integer.MAX_VALUE));
+        List<int[]> some = util.findSetsParallel(deck, deck.length, 10);
+        assertEquals(10, some.size());
+        some.forEach(set -> assertEquals(true, util.testSet(set)));
+        for (int count : new int[]{0, 1, 10, 1000})
+            assertSameSets(util.findSets(deck, deck.length, count), util.findSetsParallel(deck, deck.length, count));
+    }
+
+    @Test
+    void testSet_LegalAndIllegal() {
+        // features (most significant first): 0000, 1111, 2222 - all different
+        assertEquals(true, util.testSet(new int[]{0, 40, 80}));
+        // 0000, 0001, 0002 - same, same, same, different
+        assertEquals(true, util.testSet(new int[]{0, 1, 2}));
+        // 0000, 0001, 0011 - last feature is neither the same nor all different
+        assertEquals(false, util.testSet(new int[]{0, 1, 4}));
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}